@@ -3,51 +3,56 @@ package com.styenvy.egshiny;
 import com.mojang.logging.LogUtils;
 import com.styenvy.egshiny.commands.ShinyCommands;
 import com.styenvy.egshiny.config.ShinyConfig;
+import com.styenvy.egshiny.config.ShinySettings;
 import com.styenvy.egshiny.data.PlayerShinyData;
+import com.styenvy.egshiny.data.ShinyAttachments;
 import com.styenvy.egshiny.events.ShinyEventHandler;
 import com.styenvy.egshiny.spawn.ShinySpawnManager;
+import com.styenvy.egshiny.tracking.ShinyOwnerTracker;
+import com.styenvy.egshiny.tracking.ShinyTracker;
+import com.styenvy.egshiny.util.ShinyMobHelper;
 import com.styenvy.egshiny.util.ShinyProfileRegistry;
-import net.minecraft.world.entity.Entity;
+import net.minecraft.server.MinecraftServer;
 import net.neoforged.bus.api.IEventBus;
 import net.neoforged.fml.ModContainer;
 import net.neoforged.fml.common.Mod;
 import net.neoforged.fml.config.ModConfig;
+import net.neoforged.fml.event.config.ModConfigEvent;
 import net.neoforged.fml.event.lifecycle.FMLCommonSetupEvent;
 import net.neoforged.neoforge.common.NeoForge;
 import net.neoforged.neoforge.event.AddReloadListenerEvent;
 import net.neoforged.neoforge.event.RegisterCommandsEvent;
+import net.neoforged.neoforge.event.TagsUpdatedEvent;
+import net.neoforged.neoforge.event.server.ServerStartedEvent;
 import net.neoforged.neoforge.event.server.ServerStartingEvent;
 import net.neoforged.neoforge.event.server.ServerStoppingEvent;
+import net.neoforged.neoforge.server.ServerLifecycleHooks;
 import org.slf4j.Logger;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.UUID;
-
 @Mod(EGShiny.MODID)
 public class EGShiny {
     public static final String MODID = "egshiny";
     public static final Logger LOGGER = LogUtils.getLogger();
     
-    // Track shiny mobs per player
-    public static final Map<UUID, Entity> PLAYER_SHINY_MOBS = new HashMap<>();
-    // Track spawn timers per player
-    public static final Map<UUID, Integer> PLAYER_SPAWN_TIMERS = new HashMap<>();
-    
     public EGShiny(IEventBus modEventBus, ModContainer modContainer) {
         // Register config
         modContainer.registerConfig(ModConfig.Type.COMMON, ShinyConfig.SPEC);
         
         // Register mod event listeners
         modEventBus.addListener(this::commonSetup);
+        modEventBus.addListener(ModConfigEvent.Loading.class, this::onConfigChanged);
+        modEventBus.addListener(ModConfigEvent.Reloading.class, this::onConfigChanged);
+        ShinyAttachments.ATTACHMENT_TYPES.register(modEventBus);
         
         // Register NeoForge event listeners
         NeoForge.EVENT_BUS.register(new ShinyEventHandler());
         NeoForge.EVENT_BUS.register(new ShinySpawnManager());
         NeoForge.EVENT_BUS.addListener(this::onServerStarting);
+        NeoForge.EVENT_BUS.addListener(this::onServerStarted);
         NeoForge.EVENT_BUS.addListener(this::onServerStopping);
         NeoForge.EVENT_BUS.addListener(this::registerCommands);
         NeoForge.EVENT_BUS.addListener(this::addReloadListeners);
+        NeoForge.EVENT_BUS.addListener(this::onTagsUpdated);
         
         LOGGER.info("EG Shiny Mobs mod initialized!");
     }
@@ -56,18 +61,43 @@ public class EGShiny {
         LOGGER.info("EG Shiny Mobs Common Setup");
     }
     
+    private void onConfigChanged(ModConfigEvent event) {
+        if (event.getConfig().getSpec() != ShinyConfig.SPEC) {
+            return;
+        }
+
+        ShinySettings.update();
+
+        // Profiles are built on top of the config values; reloads arrive on the config watcher thread
+        MinecraftServer server = ServerLifecycleHooks.getCurrentServer();
+        if (server != null) {
+            server.execute(() -> ShinyProfileRegistry.rebuildProfiles(server.registryAccess()));
+        }
+    }
+
     private void onServerStarting(ServerStartingEvent event) {
         // Load player data when server starts
         PlayerShinyData.load(event.getServer());
     }
     
+    private void onServerStarted(ServerStartedEvent event) {
+        // Saved shinies count as present (if unloaded) until they are loaded or gone
+        ShinySpawnManager.restorePresence(event.getServer());
+    }
+    
     private void onServerStopping(ServerStoppingEvent event) {
-        // Save player data when server stops
-        PlayerShinyData.save(event.getServer());
+        // Write any unsaved player data before the server stops
+        PlayerShinyData.close(event.getServer());
         
+        // Save the remaining time of online players; the schedule is dropped before they are logged out
+        ShinySpawnManager.pauseAllTimers(event.getServer());
+
         // Clear tracked entities
-        PLAYER_SHINY_MOBS.clear();
-        PLAYER_SPAWN_TIMERS.clear();
+        ShinyOwnerTracker.clear();
+        ShinyTracker.clear();
+        ShinySpawnManager.clearSchedule();
+        ShinyProfileRegistry.clearCaches();
+        ShinyMobHelper.clearGearCache();
     }
     
     private void registerCommands(RegisterCommandsEvent event) {
@@ -77,4 +107,12 @@ public class EGShiny {
     private void addReloadListeners(AddReloadListenerEvent event) {
         event.addListener(new ShinyProfileRegistry.ReloadListener());
     }
+
+    private void onTagsUpdated(TagsUpdatedEvent event) {
+        // Only the server's own tags matter; the client copy arrives on another thread
+        if (event.getUpdateCause() == TagsUpdatedEvent.UpdateCause.SERVER_DATA_LOAD) {
+            ShinyProfileRegistry.compileBiomeFilters(event.getRegistryAccess());
+            ShinyMobHelper.clearGearCache();
+        }
+    }
 }
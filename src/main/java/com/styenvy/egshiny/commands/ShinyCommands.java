@@ -2,11 +2,12 @@ package com.styenvy.egshiny.commands;
 
 import com.mojang.brigadier.CommandDispatcher;
 import com.mojang.brigadier.context.CommandContext;
-import com.styenvy.egshiny.EGShiny;
-import com.styenvy.egshiny.config.ShinyConfig;
+import com.styenvy.egshiny.config.ShinySettings;
 import com.styenvy.egshiny.data.ActiveShinyData;
 import com.styenvy.egshiny.data.PlayerShinyData;
 import com.styenvy.egshiny.spawn.ShinySpawnManager;
+import com.styenvy.egshiny.tracking.ShinyOwnerTracker;
+import com.styenvy.egshiny.tracking.ShinyTracker;
 import com.styenvy.egshiny.util.ShinyMobHelper;
 import com.styenvy.egshiny.util.ShinyProfileRegistry;
 import net.minecraft.ChatFormatting;
@@ -56,6 +57,9 @@ public class ShinyCommands {
                                                 ctx,
                                                 ResourceLocationArgument.getId(ctx, "entity")
                                         ))))
+                        .then(Commands.literal("spawnstats")
+                                .requires(ShinyCommands::hasAdminPermission)
+                                .executes(ShinyCommands::showSpawnStats))
                         .then(Commands.literal("clear")
                                 .requires(ShinyCommands::hasAdminPermission)
                                 .executes(ShinyCommands::clearShinyMobs))
@@ -86,7 +90,8 @@ public class ShinyCommands {
         }
 
         PlayerShinyData.setShinyEnabled(playerUUID, true);
-        PlayerShinyData.save(source.getServer());
+        PlayerShinyData.scheduleSave(source.getServer());
+        ShinySpawnManager.startTimer(player);
         source.sendSuccess(() -> Component.literal("Shiny spawns enabled for you!")
                 .withStyle(ChatFormatting.GREEN), false);
 
@@ -110,15 +115,15 @@ public class ShinyCommands {
         }
 
         PlayerShinyData.setShinyEnabled(playerUUID, false);
-        PlayerShinyData.save(source.getServer());
+        PlayerShinyData.scheduleSave(source.getServer());
         source.sendSuccess(() -> Component.literal("Shiny spawns disabled for you!")
                 .withStyle(ChatFormatting.RED), false);
 
-        EGShiny.PLAYER_SPAWN_TIMERS.remove(playerUUID);
+        ShinySpawnManager.resetTimer(source.getServer(), playerUUID);
 
-        if (ShinyConfig.DISABLE_REMOVES_ACTIVE_SHINY.get()) {
+        if (ShinySettings.get().disableRemovesActiveShiny()) {
             ActiveShinyData activeData = ActiveShinyData.get(source.getServer());
-            Entity shinyMob = EGShiny.PLAYER_SHINY_MOBS.remove(playerUUID);
+            Entity shinyMob = ShinyOwnerTracker.untrackOwner(playerUUID);
             boolean removedLoadedMob = shinyMob != null && shinyMob.isAlive();
             if (removedLoadedMob) {
                 cleanupShinyMob(shinyMob);
@@ -136,6 +141,7 @@ public class ShinyCommands {
                         });
             }
             activeData.clear(playerUUID);
+            ShinyOwnerTracker.markGone(playerUUID);
         }
 
         return 1;
@@ -158,7 +164,7 @@ public class ShinyCommands {
         }
 
         PlayerShinyData.setHardShinyEnabled(playerUUID, true);
-        PlayerShinyData.save(source.getServer());
+        PlayerShinyData.scheduleSave(source.getServer());
         source.sendSuccess(() -> Component.literal("Hard mode shiny spawns enabled for you!")
                 .withStyle(ChatFormatting.GOLD), false);
 
@@ -182,7 +188,7 @@ public class ShinyCommands {
         }
 
         PlayerShinyData.setHardShinyEnabled(playerUUID, false);
-        PlayerShinyData.save(source.getServer());
+        PlayerShinyData.scheduleSave(source.getServer());
         source.sendSuccess(() -> Component.literal("Hard mode shiny spawns disabled for you!")
                 .withStyle(ChatFormatting.GRAY), false);
 
@@ -294,11 +300,32 @@ public class ShinyCommands {
         return 0;
     }
 
+    private static int showSpawnStats(CommandContext<CommandSourceStack> context) {
+        CommandSourceStack source = context.getSource();
+        long sampled = ShinySpawnManager.getSampledColumns();
+        long skipped = ShinySpawnManager.getSkippedColumns();
+        double skippedPercent = sampled == 0 ? 0.0 : skipped * 100.0 / sampled;
+
+        source.sendSuccess(() -> Component.literal("--- Shiny Spawn Search ---").withStyle(ChatFormatting.AQUA), false);
+        source.sendSuccess(() -> Component.literal("Columns sampled: " + sampled).withStyle(ChatFormatting.GRAY), false);
+        source.sendSuccess(() -> Component.literal(String.format(
+                        "Skipped (chunk not loaded): %d (%.1f%%)", skipped, skippedPercent))
+                .withStyle(ChatFormatting.GRAY), false);
+
+        source.sendSuccess(() -> Component.literal("--- Shiny Tracking ---").withStyle(ChatFormatting.AQUA), false);
+        source.sendSuccess(() -> Component.literal("Loaded shinies: " + ShinyTracker.getLoadedCount())
+                .withStyle(ChatFormatting.GRAY), false);
+        source.sendSuccess(() -> Component.literal("Tracked owners: " + ShinyOwnerTracker.size())
+                .withStyle(ChatFormatting.GRAY), false);
+
+        return 1;
+    }
+
     private static int clearShinyMobs(CommandContext<CommandSourceStack> context) {
         CommandSourceStack source = context.getSource();
 
         int count = 0;
-        List<Entity> trackedMobs = new ArrayList<>(EGShiny.PLAYER_SHINY_MOBS.values());
+        List<Entity> trackedMobs = ShinyOwnerTracker.getTrackedEntities();
         for (Entity entity : trackedMobs) {
             if (entity != null && entity.isAlive()) {
                 cleanupShinyMob(entity);
@@ -307,8 +334,9 @@ public class ShinyCommands {
             }
         }
 
-        EGShiny.PLAYER_SHINY_MOBS.clear();
+        ShinyOwnerTracker.clear();
         ActiveShinyData.get(source.getServer()).clearAll();
+        ShinySpawnManager.wakeAllParked(source.getServer());
 
         final int finalCount = count;
         source.sendSuccess(() -> Component.literal("Cleared " + finalCount + " tracked shiny mobs.")
@@ -332,9 +360,9 @@ public class ShinyCommands {
             }
         }
 
-        EGShiny.PLAYER_SHINY_MOBS.clear();
-        EGShiny.PLAYER_SPAWN_TIMERS.clear();
+        ShinyOwnerTracker.clear();
         ActiveShinyData.get(source.getServer()).clearAll();
+        ShinySpawnManager.resetAllTimers(source.getServer());
 
         final int finalCount = count;
         source.sendSuccess(() -> Component.literal("Killed " + finalCount + " shiny mobs in all dimensions.")
@@ -16,6 +16,7 @@ public class ShinyConfig {
     public static final ModConfigSpec.BooleanValue SHOW_COORDINATES;
     public static final ModConfigSpec.ConfigValue<String> SPAWN_NOTIFICATION_MODE;
     public static final ModConfigSpec.IntValue SPAWN_BOSSBAR_SECONDS;
+    public static final ModConfigSpec.BooleanValue LOADED_CHUNKS_ONLY;
     
     // Mob Settings
     public static final ModConfigSpec.DoubleValue MIN_HEALTH_MULTIPLIER;
@@ -39,6 +40,8 @@ public class ShinyConfig {
     public static final ModConfigSpec.BooleanValue ONE_SHINY_PER_PLAYER;
     public static final ModConfigSpec.BooleanValue NATURAL_DESPAWN;
     public static final ModConfigSpec.BooleanValue DISABLE_REMOVES_ACTIVE_SHINY;
+    public static final ModConfigSpec.ConfigValue<String> PLAYER_DATA_STORAGE;
+    public static final ModConfigSpec.ConfigValue<String> PLAYER_DATA_JDBC_URL;
     
     static {
         BUILDER.push("spawn_settings");
@@ -63,6 +66,9 @@ public class ShinyConfig {
         SPAWN_BOSSBAR_SECONDS = BUILDER
                 .comment("How long the spawn bossbar hint remains visible")
                 .defineInRange("spawn_bossbar_seconds", 8, 1, 60);
+        LOADED_CHUNKS_ONLY = BUILDER
+                .comment("Only look for spawn positions in chunks that are already loaded and entity-ticking, instead of loading or generating chunks for the search")
+                .define("loaded_chunks_only", true);
         BUILDER.pop();
         
         BUILDER.push("mob_settings");
@@ -137,6 +143,12 @@ public class ShinyConfig {
         DISABLE_REMOVES_ACTIVE_SHINY = BUILDER
                 .comment("Remove a player's active shiny mob when they run /shiny off")
                 .define("disable_removes_active_shiny", true);
+        PLAYER_DATA_STORAGE = BUILDER
+                .comment("How player preferences are stored: single_file keeps every player in memory, per_player loads each player's record on login and drops it on logout, and jdbc uses the database at player_data_jdbc_url the same way. Read when the server starts; existing world data is migrated automatically")
+                .defineInList("player_data_storage", "single_file", List.of("single_file", "per_player", "jdbc"));
+        PLAYER_DATA_JDBC_URL = BUILDER
+                .comment("JDBC URL of the preference database when player_data_storage is jdbc, e.g. jdbc:sqlite:egshiny_players.db or jdbc:h2:egshiny_players. Relative SQLite and H2 file paths are resolved against the world's data folder; use an absolute path such as jdbc:sqlite:/srv/shared/egshiny.db to share one store between several servers. The driver is not bundled and must be on the server's classpath")
+                .define("player_data_jdbc_url", "jdbc:sqlite:egshiny_players.db");
         BUILDER.pop();
         
         SPEC = BUILDER.build();
@@ -0,0 +1,125 @@
+package com.styenvy.egshiny.config;
+
+import com.styenvy.egshiny.util.ShinyProfile;
+import net.neoforged.neoforge.common.ModConfigSpec;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Immutable copy of the {@link ShinyConfig} values, rebuilt whenever the config is loaded or reloaded, so hot paths
+ * read plain fields instead of going through {@link ModConfigSpec.ConfigValue#get()}.
+ *
+ * @param baseProfile Profile built from the mob, equipment and visual settings; datapack profiles start from it.
+ */
+public record ShinySettings(
+        boolean enableMod,
+        boolean oneShinyPerPlayer,
+        boolean naturalDespawn,
+        boolean disableRemovesActiveShiny,
+        int minSpawnTime,
+        int maxSpawnTime,
+        int spawnDistance,
+        boolean loadedChunksOnly,
+        boolean showSpawnMessage,
+        boolean showCoordinates,
+        NotificationMode notificationMode,
+        int spawnBossbarTicks,
+        double damageMultiplier,
+        ShinyProfile baseProfile
+) {
+    // Until the config is first loaded, the spec defaults apply
+    private static volatile ShinySettings current = build(true);
+
+    public enum NotificationMode {
+        CHAT(true, false, false),
+        TITLE(false, true, false),
+        BOSSBAR(false, false, true),
+        BOTH(true, true, true);
+
+        private final boolean chat;
+        private final boolean title;
+        private final boolean bossbar;
+
+        NotificationMode(boolean chat, boolean title, boolean bossbar) {
+            this.chat = chat;
+            this.title = title;
+            this.bossbar = bossbar;
+        }
+
+        public boolean chat() {
+            return chat;
+        }
+
+        public boolean title() {
+            return title;
+        }
+
+        public boolean bossbar() {
+            return bossbar;
+        }
+
+        static NotificationMode parse(String mode) {
+            return switch (mode.toLowerCase(Locale.ROOT)) {
+                case "title" -> TITLE;
+                case "bossbar" -> BOSSBAR;
+                case "both" -> BOTH;
+                default -> CHAT;
+            };
+        }
+    }
+
+    public static ShinySettings get() {
+        return current;
+    }
+
+    /**
+     * Rebuilds the settings from the loaded config. Safe to call from the config watcher thread.
+     */
+    public static void update() {
+        current = build(false);
+    }
+
+    private static ShinySettings build(boolean defaults) {
+        return new ShinySettings(
+                value(ShinyConfig.ENABLE_MOD, defaults),
+                value(ShinyConfig.ONE_SHINY_PER_PLAYER, defaults),
+                value(ShinyConfig.NATURAL_DESPAWN, defaults),
+                value(ShinyConfig.DISABLE_REMOVES_ACTIVE_SHINY, defaults),
+                value(ShinyConfig.MIN_SPAWN_TIME, defaults),
+                value(ShinyConfig.MAX_SPAWN_TIME, defaults),
+                value(ShinyConfig.SPAWN_DISTANCE, defaults),
+                value(ShinyConfig.LOADED_CHUNKS_ONLY, defaults),
+                value(ShinyConfig.SHOW_SPAWN_MESSAGE, defaults),
+                value(ShinyConfig.SHOW_COORDINATES, defaults),
+                NotificationMode.parse(value(ShinyConfig.SPAWN_NOTIFICATION_MODE, defaults)),
+                value(ShinyConfig.SPAWN_BOSSBAR_SECONDS, defaults) * 20,
+                value(ShinyConfig.DAMAGE_MULTIPLIER, defaults),
+                new ShinyProfile(
+                        value(ShinyConfig.MIN_HEALTH_MULTIPLIER, defaults),
+                        value(ShinyConfig.MAX_HEALTH_MULTIPLIER, defaults),
+                        value(ShinyConfig.FIXED_HEALTH_MULTIPLIER, defaults),
+                        value(ShinyConfig.USE_RANDOM_HEALTH, defaults),
+                        value(ShinyConfig.DAMAGE_MULTIPLIER, defaults),
+                        false,
+                        value(ShinyConfig.EQUIP_NETHERITE, defaults),
+                        value(ShinyConfig.MAX_ENCHANTMENTS, defaults),
+                        value(ShinyConfig.DROP_CHANCE_PER_ITEM, defaults),
+                        value(ShinyConfig.USE_GLOW_EFFECT, defaults),
+                        value(ShinyConfig.RANDOM_TEAM_COLOR, defaults),
+                        value(ShinyConfig.FIXED_TEAM_COLOR, defaults),
+                        null,
+                        Set.of(),
+                        Set.of(),
+                        Set.of(),
+                        ShinyProfile.DEFAULT_WEIGHT,
+                        Map.of()
+                )
+        );
+    }
+
+    private static <T> T value(ModConfigSpec.ConfigValue<T> configValue, boolean defaults) {
+        return defaults ? configValue.getDefault() : configValue.get();
+    }
+}
@@ -1,27 +1,50 @@
 package com.styenvy.egshiny.data;
 
 import net.minecraft.core.HolderLookup;
+import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.nbt.ListTag;
 import net.minecraft.nbt.Tag;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.entity.LivingEntity;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.saveddata.SavedData;
+import org.jetbrains.annotations.Nullable;
 
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 
+/**
+ * The active shiny of each player, with the dimension it was last seen in.
+ *
+ * The dimension is updated whenever the shiny joins a level, so a lookup only has to check one level; within it,
+ * the shiny is found by UUID wherever it has wandered. Entries written by older versions have no dimension until the
+ * shiny is next seen.
+ */
 public class ActiveShinyData extends SavedData {
     private static final String DATA_NAME = "egshiny_active_shinies";
     private static final String ENTRIES_TAG = "entries";
     private static final String PLAYER_TAG = "player";
     private static final String ENTITY_TAG = "entity";
+    private static final String DIMENSION_TAG = "dimension";
 
-    private final Map<UUID, UUID> activeShinies = new HashMap<>();
+    private final Map<UUID, ActiveShiny> activeShinies = new HashMap<>();
+
+    /**
+     * @param dimension The level the shiny was last seen in, or null if unknown.
+     */
+    public record ActiveShiny(UUID entityUUID, @Nullable ResourceKey<Level> dimension) {
+        static ActiveShiny of(Entity entity) {
+            return new ActiveShiny(entity.getUUID(), entity.level().dimension());
+        }
+    }
 
     public static ActiveShinyData get(MinecraftServer server) {
         return server.overworld().getDataStorage().computeIfAbsent(factory(), DATA_NAME);
@@ -38,7 +61,14 @@ public class ActiveShinyData extends SavedData {
         for (int i = 0; i < entries.size(); i++) {
             CompoundTag entry = entries.getCompound(i);
             if (entry.hasUUID(PLAYER_TAG) && entry.hasUUID(ENTITY_TAG)) {
-                data.activeShinies.put(entry.getUUID(PLAYER_TAG), entry.getUUID(ENTITY_TAG));
+                ResourceKey<Level> dimension = null;
+                if (entry.contains(DIMENSION_TAG, Tag.TAG_STRING)) {
+                    ResourceLocation dimensionId = ResourceLocation.tryParse(entry.getString(DIMENSION_TAG));
+                    dimension = dimensionId == null ? null : ResourceKey.create(Registries.DIMENSION, dimensionId);
+                }
+
+                data.activeShinies.put(entry.getUUID(PLAYER_TAG),
+                        new ActiveShiny(entry.getUUID(ENTITY_TAG), dimension));
             }
         }
 
@@ -49,10 +79,13 @@ public class ActiveShinyData extends SavedData {
     public CompoundTag save(CompoundTag tag, HolderLookup.Provider registries) {
         ListTag entries = new ListTag();
 
-        for (Map.Entry<UUID, UUID> activeShiny : activeShinies.entrySet()) {
+        for (Map.Entry<UUID, ActiveShiny> activeShiny : activeShinies.entrySet()) {
             CompoundTag entry = new CompoundTag();
             entry.putUUID(PLAYER_TAG, activeShiny.getKey());
-            entry.putUUID(ENTITY_TAG, activeShiny.getValue());
+            entry.putUUID(ENTITY_TAG, activeShiny.getValue().entityUUID());
+            if (activeShiny.getValue().dimension() != null) {
+                entry.putString(DIMENSION_TAG, activeShiny.getValue().dimension().location().toString());
+            }
             entries.add(entry);
         }
 
@@ -60,11 +93,27 @@ public class ActiveShinyData extends SavedData {
         return tag;
     }
 
-    public void track(UUID playerUUID, UUID entityUUID) {
-        activeShinies.put(playerUUID, entityUUID);
+    public void track(UUID playerUUID, Entity entity) {
+        activeShinies.put(playerUUID, ActiveShiny.of(entity));
         setDirty();
     }
 
+    /**
+     * Records which level the player's active shiny is in now, if the entity is that shiny.
+     */
+    public void updateLocation(UUID playerUUID, Entity entity) {
+        ActiveShiny current = activeShinies.get(playerUUID);
+        if (current == null || !current.entityUUID().equals(entity.getUUID())) {
+            return;
+        }
+
+        ActiveShiny updated = ActiveShiny.of(entity);
+        if (!updated.equals(current)) {
+            activeShinies.put(playerUUID, updated);
+            setDirty();
+        }
+    }
+
     public void clear(UUID playerUUID) {
         if (activeShinies.remove(playerUUID) != null) {
             setDirty();
@@ -78,23 +127,43 @@ public class ActiveShinyData extends SavedData {
         }
     }
 
+    public Set<UUID> getPlayerUUIDs() {
+        return Set.copyOf(activeShinies.keySet());
+    }
+
     public Optional<UUID> getEntityUUID(UUID playerUUID) {
-        return Optional.ofNullable(activeShinies.get(playerUUID));
+        ActiveShiny activeShiny = activeShinies.get(playerUUID);
+        return activeShiny == null ? Optional.empty() : Optional.of(activeShiny.entityUUID());
     }
 
+    /**
+     * @return The player's active shiny if it is loaded; empty if there is none or it is in an unloaded chunk.
+     */
     public Optional<LivingEntity> findLoadedEntity(MinecraftServer server, UUID playerUUID) {
-        UUID entityUUID = activeShinies.get(playerUUID);
-        if (entityUUID == null) {
+        ActiveShiny activeShiny = activeShinies.get(playerUUID);
+        if (activeShiny == null) {
             return Optional.empty();
         }
 
-        for (ServerLevel level : server.getAllLevels()) {
-            Entity entity = level.getEntity(entityUUID);
-            if (entity instanceof LivingEntity living) {
-                return Optional.of(living);
+        if (activeShiny.dimension() == null) {
+            // Location not known yet: fall back to asking every level
+            for (ServerLevel level : server.getAllLevels()) {
+                Entity entity = level.getEntity(activeShiny.entityUUID());
+                if (entity instanceof LivingEntity living) {
+                    return Optional.of(living);
+                }
             }
+            return Optional.empty();
+        }
+
+        ServerLevel level = server.getLevel(activeShiny.dimension());
+        if (level == null) {
+            return Optional.empty();
         }
 
-        return Optional.empty();
+        // A UUID lookup never loads anything, and finds the mob wherever it has wandered within the level
+        return level.getEntity(activeShiny.entityUUID()) instanceof LivingEntity living
+                ? Optional.of(living)
+                : Optional.empty();
     }
 }
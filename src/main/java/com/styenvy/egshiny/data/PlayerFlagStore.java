@@ -0,0 +1,234 @@
+package com.styenvy.egshiny.data;
+
+import it.unimi.dsi.fastutil.HashCommon;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.UUID;
+
+/**
+ * Player preference flags packed into one byte per player, in an open-addressing hash map keyed by the two halves of
+ * the player's UUID.
+ *
+ * A player whose flags are all clear has the default preferences and is not stored, so a zero flag byte also marks an
+ * empty slot. Not thread-safe; copy it to hand it to another thread.
+ */
+public final class PlayerFlagStore {
+    /** Shiny spawns are turned off for the player. */
+    public static final byte DISABLED = 1;
+    /** The player opted in to hard-mode shinies. */
+    public static final byte HARD = 1 << 1;
+
+    /** Bytes per entry in {@link #write}: both UUID halves and the flags. */
+    public static final int ENTRY_BYTES = Long.BYTES * 2 + 1;
+
+    private static final int MIN_CAPACITY = 16;
+
+    private long[] mostBits;
+    private long[] leastBits;
+    private byte[] flags;
+    private int mask;
+    private int size;
+
+    public PlayerFlagStore() {
+        this(MIN_CAPACITY);
+    }
+
+    private PlayerFlagStore(int capacity) {
+        allocate(capacity);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte get(UUID playerUUID) {
+        return get(playerUUID.getMostSignificantBits(), playerUUID.getLeastSignificantBits());
+    }
+
+    public byte get(long most, long least) {
+        int slot = find(most, least);
+        return slot < 0 ? 0 : flags[slot];
+    }
+
+    public boolean has(UUID playerUUID, byte flag) {
+        return (get(playerUUID) & flag) != 0;
+    }
+
+    /**
+     * Sets or clears one flag.
+     *
+     * @return True if the player's flags changed.
+     */
+    public boolean setFlag(UUID playerUUID, byte flag, boolean value) {
+        byte current = get(playerUUID);
+        byte updated = (byte) (value ? current | flag : current & ~flag);
+        if (updated == current) {
+            return false;
+        }
+
+        put(playerUUID.getMostSignificantBits(), playerUUID.getLeastSignificantBits(), updated);
+        return true;
+    }
+
+    /**
+     * Stores a player's flags; clearing every flag removes the player.
+     *
+     * @return The previous flags.
+     */
+    public byte put(long most, long least, byte value) {
+        int slot = find(most, least);
+        if (slot >= 0) {
+            byte previous = flags[slot];
+            if (value == 0) {
+                size--;
+                shiftEntries(slot);
+            } else {
+                flags[slot] = value;
+            }
+            return previous;
+        }
+
+        if (value != 0) {
+            insert(-slot - 1, most, least, value);
+        }
+        return 0;
+    }
+
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(flags, (byte) 0);
+            size = 0;
+        }
+    }
+
+    public PlayerFlagStore copy() {
+        PlayerFlagStore copy = new PlayerFlagStore(flags.length);
+        copy.mostBits = mostBits.clone();
+        copy.leastBits = leastBits.clone();
+        copy.flags = flags.clone();
+        copy.size = size;
+        return copy;
+    }
+
+    public void forEach(EntryConsumer consumer) {
+        for (int slot = 0; slot < flags.length; slot++) {
+            if (flags[slot] != 0) {
+                consumer.accept(mostBits[slot], leastBits[slot], flags[slot]);
+            }
+        }
+    }
+
+    /**
+     * Writes the entry count followed by {@link #ENTRY_BYTES} per player.
+     */
+    public void write(DataOutput output) throws IOException {
+        output.writeInt(size);
+        for (int slot = 0; slot < flags.length; slot++) {
+            if (flags[slot] != 0) {
+                output.writeLong(mostBits[slot]);
+                output.writeLong(leastBits[slot]);
+                output.writeByte(flags[slot]);
+            }
+        }
+    }
+
+    /**
+     * Reads entries written by {@link #write} into this store, replacing players that are already in it.
+     */
+    public void read(DataInput input) throws IOException {
+        int count = input.readInt();
+        if (count < 0) {
+            throw new IOException("Invalid player count " + count);
+        }
+
+        for (int i = 0; i < count; i++) {
+            put(input.readLong(), input.readLong(), input.readByte());
+        }
+    }
+
+    /**
+     * @return The slot holding the player, or {@code -(insertion slot) - 1} if they are not stored.
+     */
+    private int find(long most, long least) {
+        int slot = hash(most, least) & mask;
+        while (flags[slot] != 0) {
+            if (mostBits[slot] == most && leastBits[slot] == least) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -slot - 1;
+    }
+
+    private void insert(int slot, long most, long least, byte value) {
+        mostBits[slot] = most;
+        leastBits[slot] = least;
+        flags[slot] = value;
+        // Keep at least a quarter of the slots free so probe runs stay short
+        if (++size > flags.length * 3 / 4) {
+            rehash(flags.length * 2);
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldMost = mostBits;
+        long[] oldLeast = leastBits;
+        byte[] oldFlags = flags;
+        allocate(capacity);
+        for (int slot = 0; slot < oldFlags.length; slot++) {
+            if (oldFlags[slot] != 0) {
+                int target = -find(oldMost[slot], oldLeast[slot]) - 1;
+                mostBits[target] = oldMost[slot];
+                leastBits[target] = oldLeast[slot];
+                flags[target] = oldFlags[slot];
+            }
+        }
+    }
+
+    /**
+     * Removes the entry at {@code slot} by moving later entries of its probe run back, so lookups never need
+     * tombstones.
+     */
+    private void shiftEntries(int slot) {
+        while (true) {
+            int last = slot;
+            slot = (slot + 1) & mask;
+            while (true) {
+                if (flags[slot] == 0) {
+                    flags[last] = 0;
+                    return;
+                }
+
+                int home = hash(mostBits[slot], leastBits[slot]) & mask;
+                // The entry can move back to `last` only if that does not put it before its home slot
+                if (last <= slot ? last >= home || home > slot : last >= home && home > slot) {
+                    break;
+                }
+                slot = (slot + 1) & mask;
+            }
+
+            mostBits[last] = mostBits[slot];
+            leastBits[last] = leastBits[slot];
+            flags[last] = flags[slot];
+        }
+    }
+
+    private void allocate(int capacity) {
+        mostBits = new long[capacity];
+        leastBits = new long[capacity];
+        flags = new byte[capacity];
+        mask = capacity - 1;
+    }
+
+    private static int hash(long most, long least) {
+        return (int) HashCommon.mix(most ^ least);
+    }
+
+    @FunctionalInterface
+    public interface EntryConsumer {
+        void accept(long most, long least, byte flags);
+    }
+}
@@ -1,172 +1,317 @@
 package com.styenvy.egshiny.data;
 
-import com.google.gson.Gson;
-import com.google.gson.GsonBuilder;
-import com.google.gson.reflect.TypeToken;
 import com.styenvy.egshiny.EGShiny;
+import com.styenvy.egshiny.config.ShinyConfig;
+import com.styenvy.egshiny.data.storage.BulkPreferenceStorage;
+import com.styenvy.egshiny.data.storage.JdbcStorage;
+import com.styenvy.egshiny.data.storage.MemoryStorage;
+import com.styenvy.egshiny.data.storage.PerPlayerFileStorage;
+import com.styenvy.egshiny.data.storage.PlayerPreferenceStorage;
+import com.styenvy.egshiny.data.storage.PreferenceStorageExecutor;
+import com.styenvy.egshiny.data.storage.SingleFileStorage;
+import net.minecraft.Util;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.world.level.storage.LevelResource;
+import org.jetbrains.annotations.Nullable;
 
-import java.io.File;
 import java.io.IOException;
-import java.lang.reflect.Type;
-import java.nio.charset.StandardCharsets;
-import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+/**
+ * Per-player shiny preferences (spawns on/off and hard mode), packed into one flag byte per player in a
+ * {@link PlayerFlagStore}. Players on the default preferences are not stored.
+ *
+ * Where the flags are persisted is picked by the {@code player_data_storage} config value when the server starts;
+ * see {@link PlayerPreferenceStorage} and its implementations. A {@link BulkPreferenceStorage} is kept in memory in
+ * full; the others are read when a player logs in and evicted when they log out, so only online players are kept in
+ * memory. Storage calls run on a background I/O thread through a {@link PreferenceStorageExecutor}, and the server
+ * thread never waits for them: reads finish on the server thread through callbacks.
+ */
 public class PlayerShinyData {
-    private static final Gson GSON = new GsonBuilder().setPrettyPrinting().create();
-    private static final String DATA_FILE_NAME = "egshiny_player_data.json";
-    private static final String HARD_DATA_FILE_NAME = "egshiny_player_hard_data.json";
+    // Flags of every stored player, or of online players only when the storage loads players on demand
+    private static final PlayerFlagStore FLAGS = new PlayerFlagStore();
 
-    // Map of player UUID to their shiny enabled status (true = enabled, false = disabled)
-    private static final Map<UUID, Boolean> playerShinyStatus = new HashMap<>();
-    // Map of player UUID to their hard-mode shiny preference (true = hard mode on)
-    private static final Map<UUID, Boolean> playerHardShinyStatus = new HashMap<>();
+    @Nullable
+    private static PreferenceStorageExecutor executor;
+    @Nullable
+    private static MinecraftServer server;
+    private static boolean onDemand;
+    // The configured storage could not be opened, so nothing is saved this run
+    private static boolean storageUnavailable;
+    // On-demand storage: players whose flags are in FLAGS
+    private static final Set<UUID> RESIDENT = new HashSet<>();
+    // On-demand storage: players whose flags are being read
+    private static final Map<UUID, PendingLoad> LOADING = new HashMap<>();
+    // Players with changes that have not been handed to the executor yet
+    private static final Set<UUID> DIRTY_PLAYERS = new HashSet<>();
 
     public static void load(MinecraftServer server) {
-        playerShinyStatus.clear();
-        playerHardShinyStatus.clear();
-
-        // Base enabled / disabled map
-        File dataFile = getDataFile(server);
-
-        if (dataFile.exists()) {
-            try (var reader = Files.newBufferedReader(dataFile.toPath(), StandardCharsets.UTF_8)) {
-                Type type = new TypeToken<Map<String, Boolean>>() {}.getType();
-                Map<String, Boolean> stringMap = GSON.fromJson(reader, type);
-
-                if (stringMap != null) {
-                    for (Map.Entry<String, Boolean> entry : stringMap.entrySet()) {
-                        try {
-                            UUID uuid = UUID.fromString(entry.getKey());
-                            playerShinyStatus.put(uuid, entry.getValue());
-                        } catch (IllegalArgumentException e) {
-                            EGShiny.LOGGER.warn("Invalid UUID in player data: {}", entry.getKey());
-                        }
-                    }
-                    EGShiny.LOGGER.info("Loaded shiny mob data for {} players", playerShinyStatus.size());
-                }
+        close(server);
+        FLAGS.clear();
+        RESIDENT.clear();
+        LOADING.clear();
+        DIRTY_PLAYERS.clear();
+        PlayerShinyData.server = server;
+        storageUnavailable = false;
+
+        Path dataDir = server.getWorldPath(LevelResource.ROOT).resolve("data");
+        PlayerPreferenceStorage storage = createStorage(dataDir);
+        try {
+            storage.open();
+        } catch (IOException e) {
+            EGShiny.LOGGER.error("Failed to open {} shiny preference storage; preferences changed this run will NOT be "
+                    + "saved, fix the storage and restart", ShinyConfig.PLAYER_DATA_STORAGE.get(), e);
+            storage = new MemoryStorage();
+            storageUnavailable = true;
+        }
+
+        onDemand = !(storage instanceof BulkPreferenceStorage);
+        if (storage instanceof BulkPreferenceStorage bulkStorage) {
+            try {
+                bulkStorage.loadAll(FLAGS);
             } catch (IOException e) {
                 EGShiny.LOGGER.error("Failed to load player shiny data", e);
             }
-        } else {
-            EGShiny.LOGGER.info("No existing shiny mob player data found, starting fresh");
-        }
-
-        // Hard-mode preference map (separate file, optional)
-        File hardFile = getHardDataFile(server);
-        if (hardFile.exists()) {
-            try (var reader = Files.newBufferedReader(hardFile.toPath(), StandardCharsets.UTF_8)) {
-                Type type = new TypeToken<Map<String, Boolean>>() {}.getType();
-                Map<String, Boolean> stringMap = GSON.fromJson(reader, type);
-
-                if (stringMap != null) {
-                    for (Map.Entry<String, Boolean> entry : stringMap.entrySet()) {
-                        try {
-                            UUID uuid = UUID.fromString(entry.getKey());
-                            playerHardShinyStatus.put(uuid, entry.getValue());
-                        } catch (IllegalArgumentException e) {
-                            EGShiny.LOGGER.warn("Invalid UUID in hard-mode player data: {}", entry.getKey());
-                        }
-                    }
-                    EGShiny.LOGGER.info("Loaded hard-mode shiny data for {} players", playerHardShinyStatus.size());
-                }
-            } catch (IOException e) {
-                EGShiny.LOGGER.error("Failed to load hard-mode player shiny data", e);
+        }
+        executor = new PreferenceStorageExecutor(storage, Util.ioPool());
+    }
+
+    private static PlayerPreferenceStorage createStorage(Path dataDir) {
+        return switch (ShinyConfig.PLAYER_DATA_STORAGE.get()) {
+            case "per_player" -> new PerPlayerFileStorage(dataDir);
+            case "jdbc" -> new JdbcStorage(ShinyConfig.PLAYER_DATA_JDBC_URL.get(), dataDir);
+            default -> new SingleFileStorage(dataDir);
+        };
+    }
+
+    /**
+     * @return True if the configured storage could not be opened and preferences are only kept until the server
+     * stops; admins are told when they log in.
+     */
+    public static boolean isStorageUnavailable() {
+        return storageUnavailable;
+    }
+
+    /**
+     * Loads a player's flags when the storage reads players on demand, then runs {@code onLoaded} on the server
+     * thread. Anything that depends on their preferences, like the spawn timer, belongs in {@code onLoaded}; it runs
+     * straight away when the flags are already in memory.
+     */
+    public static void onPlayerLogin(UUID playerUUID, Runnable onLoaded) {
+        whenLoaded(playerUUID, flags -> onLoaded.run());
+    }
+
+    /**
+     * Runs {@code action} if the player has shiny spawns disabled. When their flags are not in memory (e.g. the owner
+     * of a shiny that was just loaded is offline), they are read in the background and {@code action} runs later on
+     * the server thread, so check that whatever it touches is still there.
+     */
+    public static void ifShinyDisabled(UUID playerUUID, Runnable action) {
+        whenLoaded(playerUUID, flags -> {
+            if ((flags & PlayerFlagStore.DISABLED) != 0) {
+                action.run();
             }
+        });
+    }
+
+    /**
+     * Queues the player's unsaved changes and evicts them from memory when the storage reads players on demand.
+     */
+    public static void onPlayerLogout(MinecraftServer server, UUID playerUUID) {
+        // A read that is still running finds the player offline and does not keep their flags
+        if (!onDemand || !RESIDENT.contains(playerUUID)) {
+            return;
+        }
+
+        scheduleSave(server);
+        RESIDENT.remove(playerUUID);
+        FLAGS.put(playerUUID.getMostSignificantBits(), playerUUID.getLeastSignificantBits(), (byte) 0);
+    }
+
+    /**
+     * Passes the player's flags to {@code callback}: straight away when they are in memory, otherwise on the server
+     * thread once the storage executor has read them. Reads of the same player share one storage call.
+     */
+    private static void whenLoaded(UUID playerUUID, Consumer<Byte> callback) {
+        PendingLoad load = startLoad(playerUUID);
+        if (load == null) {
+            callback.accept(FLAGS.get(playerUUID));
         } else {
-            EGShiny.LOGGER.info("No existing hard-mode shiny player data found, starting fresh");
+            load.callbacks.add(callback);
         }
     }
 
-    public static void save(MinecraftServer server) {
-        // Base enabled / disabled map
-        File dataFile = getDataFile(server);
+    /**
+     * Starts reading a player's flags unless they are in memory or already being read.
+     *
+     * @return The read in progress, or null if the flags are in memory.
+     */
+    @Nullable
+    private static PendingLoad startLoad(UUID playerUUID) {
+        if (!onDemand || RESIDENT.contains(playerUUID) || executor == null || server == null) {
+            return null;
+        }
 
-        try {
-            // Ensure directory exists
-            Path parent = dataFile.toPath().getParent();
-            if (parent != null) {
-                Files.createDirectories(parent);
-            }
+        PendingLoad load = LOADING.get(playerUUID);
+        if (load == null) {
+            load = new PendingLoad();
+            LOADING.put(playerUUID, load);
+            PreferenceStorageExecutor source = executor;
+            executor.read(playerUUID).thenAcceptAsync(stored -> finishLoad(source, playerUUID, stored), server);
+        }
+        return load;
+    }
 
-            // Convert UUID to String for JSON serialization
-            Map<String, Boolean> stringMap = new HashMap<>();
-            for (Map.Entry<UUID, Boolean> entry : playerShinyStatus.entrySet()) {
-                stringMap.put(entry.getKey().toString(), entry.getValue());
-            }
+    private static void finishLoad(PreferenceStorageExecutor source, UUID playerUUID, byte stored) {
+        // Dropped if the storage was reopened while reading
+        PendingLoad load = LOADING.get(playerUUID);
+        if (source != executor || load == null || server == null) {
+            return;
+        }
+        LOADING.remove(playerUUID);
 
-            try (var writer = Files.newBufferedWriter(dataFile.toPath(), StandardCharsets.UTF_8)) {
-                GSON.toJson(stringMap, writer);
-                EGShiny.LOGGER.info("Saved shiny mob data for {} players", playerShinyStatus.size());
+        byte flags = load.apply(stored);
+        if (server.getPlayerList().getPlayer(playerUUID) != null) {
+            FLAGS.put(playerUUID.getMostSignificantBits(), playerUUID.getLeastSignificantBits(), flags);
+            RESIDENT.add(playerUUID);
+            if (flags != stored) {
+                DIRTY_PLAYERS.add(playerUUID);
             }
-        } catch (IOException e) {
-            EGShiny.LOGGER.error("Failed to save player shiny data", e);
+        } else if (flags != stored) {
+            executor.write(playerUUID, flags);
         }
 
-        // Hard-mode preference map
-        File hardFile = getHardDataFile(server);
-        try {
-            Path parent = hardFile.toPath().getParent();
-            if (parent != null) {
-                Files.createDirectories(parent);
-            }
+        for (Consumer<Byte> callback : load.callbacks) {
+            callback.accept(flags);
+        }
+    }
 
-            Map<String, Boolean> stringMap = new HashMap<>();
-            for (Map.Entry<UUID, Boolean> entry : playerHardShinyStatus.entrySet()) {
-                stringMap.put(entry.getKey().toString(), entry.getValue());
-            }
+    /**
+     * Hands any unsaved preference changes to the storage executor, which writes them on a background I/O thread.
+     * Changes made before the write starts are coalesced into it, so bursts of toggles cost one write.
+     */
+    public static void scheduleSave(MinecraftServer server) {
+        if (executor == null || DIRTY_PLAYERS.isEmpty()) {
+            return;
+        }
 
-            try (var writer = Files.newBufferedWriter(hardFile.toPath(), StandardCharsets.UTF_8)) {
-                GSON.toJson(stringMap, writer);
-                EGShiny.LOGGER.info("Saved hard-mode shiny data for {} players", playerHardShinyStatus.size());
-            }
-        } catch (IOException e) {
-            EGShiny.LOGGER.error("Failed to save hard-mode player shiny data", e);
+        for (UUID playerUUID : DIRTY_PLAYERS) {
+            executor.write(playerUUID, FLAGS.get(playerUUID));
         }
+        DIRTY_PLAYERS.clear();
+    }
+
+    /**
+     * Writes any unsaved changes on the calling thread and closes the storage.
+     */
+    public static void close(MinecraftServer server) {
+        if (executor == null) {
+            return;
+        }
+
+        scheduleSave(server);
+        // Changes made while a read was running still need the stored flags; the server is stopping, so wait for them
+        LOADING.forEach((playerUUID, load) -> {
+            if (load.changed()) {
+                executor.write(playerUUID, load.apply(executor.read(playerUUID).join()));
+            }
+        });
+        LOADING.clear();
+        executor.close();
+        executor = null;
+        PlayerShinyData.server = null;
     }
 
-    private static File getDataFile(MinecraftServer server) {
-        // Store in world's data folder
-        Path worldPath = server.getWorldPath(LevelResource.ROOT);
-        Path dataPath = worldPath.resolve("data").resolve(DATA_FILE_NAME);
-        return dataPath.toFile();
+    /**
+     * Current flags of a player. When the storage reads players on demand and the player's flags are not in memory,
+     * this is the defaults with any changes made since their read started; use {@link #ifShinyDisabled} where the
+     * stored value matters.
+     */
+    private static byte getFlags(UUID playerUUID) {
+        if (onDemand && !RESIDENT.contains(playerUUID)) {
+            PendingLoad load = LOADING.get(playerUUID);
+            return load == null ? 0 : load.apply((byte) 0);
+        }
+        return FLAGS.get(playerUUID);
     }
 
-    private static File getHardDataFile(MinecraftServer server) {
-        // Store in world's data folder
-        Path worldPath = server.getWorldPath(LevelResource.ROOT);
-        Path dataPath = worldPath.resolve("data").resolve(HARD_DATA_FILE_NAME);
-        return dataPath.toFile();
+    private static void setFlag(UUID playerUUID, byte flag, boolean value) {
+        // Changes to players whose flags are not in memory are applied on top of the stored flags once they are read
+        PendingLoad load = startLoad(playerUUID);
+        if (load != null) {
+            load.setFlag(flag, value);
+            return;
+        }
+
+        if (FLAGS.setFlag(playerUUID, flag, value)) {
+            DIRTY_PLAYERS.add(playerUUID);
+        }
     }
 
     public static boolean isShinyDisabled(UUID playerUUID) {
-        // If not in map, default to enabled (true means enabled, so return false for "is disabled")
-        return !playerShinyStatus.getOrDefault(playerUUID, true);
+        // Players without stored flags have shinies enabled
+        return (getFlags(playerUUID) & PlayerFlagStore.DISABLED) != 0;
     }
 
     public static void setShinyEnabled(UUID playerUUID, boolean enabled) {
-        playerShinyStatus.put(playerUUID, enabled);
+        setFlag(playerUUID, PlayerFlagStore.DISABLED, !enabled);
     }
 
     public static boolean isHardShinyEnabled(UUID playerUUID) {
-        return playerHardShinyStatus.getOrDefault(playerUUID, false);
+        return (getFlags(playerUUID) & PlayerFlagStore.HARD) != 0;
     }
 
     public static void setHardShinyEnabled(UUID playerUUID, boolean enabled) {
-        playerHardShinyStatus.put(playerUUID, enabled);
+        setFlag(playerUUID, PlayerFlagStore.HARD, enabled);
     }
 
     public static void removePlayer(UUID playerUUID) {
-        playerShinyStatus.remove(playerUUID);
-        playerHardShinyStatus.remove(playerUUID);
+        setFlag(playerUUID, (byte) (PlayerFlagStore.DISABLED | PlayerFlagStore.HARD), false);
+    }
+
+    /**
+     * Enabled status of every player whose preferences differ from the defaults (shinies disabled or hard mode on)
+     * and are in memory; with on-demand storage, only online players. Players on the defaults, including anyone who
+     * turned shinies back on, are not stored and so are not listed; treat a missing player as enabled.
+     */
+    public static Map<UUID, Boolean> getPlayersWithNonDefaultPreferences() {
+        Map<UUID, Boolean> result = new HashMap<>();
+        FLAGS.forEach((most, least, flags) -> result.put(new UUID(most, least), (flags & PlayerFlagStore.DISABLED) == 0));
+        return result;
     }
 
-    public static Map<UUID, Boolean> getAllPlayerData() {
-        return new HashMap<>(playerShinyStatus);
+    /**
+     * Changes made to a player while their flags are being read, kept as the bits to set and the bits to clear.
+     */
+    private static final class PendingLoad {
+        private final List<Consumer<Byte>> callbacks = new ArrayList<>();
+        private byte set;
+        private byte cleared;
+
+        void setFlag(byte flag, boolean value) {
+            if (value) {
+                set |= flag;
+                cleared &= (byte) ~flag;
+            } else {
+                cleared |= flag;
+                set &= (byte) ~flag;
+            }
+        }
+
+        boolean changed() {
+            return (set | cleared) != 0;
+        }
+
+        byte apply(byte stored) {
+            return (byte) ((stored | set) & ~cleared);
+        }
     }
 }
@@ -0,0 +1,21 @@
+package com.styenvy.egshiny.data;
+
+import com.styenvy.egshiny.EGShiny;
+import net.neoforged.neoforge.attachment.AttachmentType;
+import net.neoforged.neoforge.registries.DeferredHolder;
+import net.neoforged.neoforge.registries.DeferredRegister;
+import net.neoforged.neoforge.registries.NeoForgeRegistries;
+
+public final class ShinyAttachments {
+    public static final DeferredRegister<AttachmentType<?>> ATTACHMENT_TYPES =
+            DeferredRegister.create(NeoForgeRegistries.ATTACHMENT_TYPES, EGShiny.MODID);
+
+    // Saved with the entity; only ever present on shiny mobs
+    public static final DeferredHolder<AttachmentType<?>, AttachmentType<ShinyState>> SHINY_STATE =
+            ATTACHMENT_TYPES.register("shiny_state", () -> AttachmentType.builder(() -> ShinyState.UNOWNED)
+                    .serialize(ShinyState.CODEC)
+                    .build());
+
+    private ShinyAttachments() {
+    }
+}
@@ -0,0 +1,29 @@
+package com.styenvy.egshiny.data;
+
+import com.mojang.serialization.Codec;
+import com.mojang.serialization.codecs.RecordCodecBuilder;
+import net.minecraft.core.UUIDUtil;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Shiny state of an entity, stored as the {@link ShinyAttachments#SHINY_STATE} attachment. An entity is shiny
+ * exactly when it has the attachment.
+ *
+ * @param hard  True if the entity was made shiny with a hard-only profile in hard mode.
+ * @param owner The player the shiny spawned for, if any.
+ */
+public record ShinyState(boolean hard, @Nullable UUID owner) {
+    public static final Codec<ShinyState> CODEC = RecordCodecBuilder.create(instance -> instance.group(
+            Codec.BOOL.optionalFieldOf("hard", false).forGetter(ShinyState::hard),
+            UUIDUtil.CODEC.optionalFieldOf("owner").forGetter(state -> Optional.ofNullable(state.owner()))
+    ).apply(instance, (hard, owner) -> new ShinyState(hard, owner.orElse(null))));
+
+    public static final ShinyState UNOWNED = new ShinyState(false, null);
+
+    public ShinyState withOwner(UUID ownerUUID) {
+        return new ShinyState(hard, ownerUUID);
+    }
+}
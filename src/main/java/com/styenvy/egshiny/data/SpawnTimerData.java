@@ -0,0 +1,118 @@
+package com.styenvy.egshiny.data;
+
+import net.minecraft.core.HolderLookup;
+import net.minecraft.nbt.CompoundTag;
+import net.minecraft.nbt.ListTag;
+import net.minecraft.nbt.Tag;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.world.level.saveddata.SavedData;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Persistent per-player shiny spawn timers.
+ *
+ * Running timers are stored as absolute overworld game-time deadlines, so they only need writing when a deadline
+ * changes and they survive restarts. Timers of logged-out players are stored as the ticks that were left.
+ */
+public class SpawnTimerData extends SavedData {
+    private static final String DATA_NAME = "egshiny_spawn_timers";
+    private static final String ENTRIES_TAG = "entries";
+    private static final String PLAYER_TAG = "player";
+    private static final String TIME_TAG = "time";
+    private static final String PENDING_TAG = "pending";
+    private static final String PAUSED_TAG = "paused";
+
+    private final Map<UUID, SpawnTimer> timers = new HashMap<>();
+
+    /**
+     * @param time         The game-time deadline, or the remaining ticks if the timer is paused.
+     * @param pendingDelay Ticks that only start counting once the player no longer has an active shiny.
+     * @param paused       True while the player is logged out.
+     */
+    public record SpawnTimer(long time, long pendingDelay, boolean paused) {
+        public static SpawnTimer running(long deadline, long pendingDelay) {
+            return new SpawnTimer(deadline, pendingDelay, false);
+        }
+
+        public static SpawnTimer paused(long remainingTicks, long pendingDelay) {
+            return new SpawnTimer(remainingTicks, pendingDelay, true);
+        }
+
+        /**
+         * Resolves the game-time deadline this timer represents at {@code gameTime}.
+         */
+        public long deadline(long gameTime) {
+            return paused ? gameTime + time : time;
+        }
+    }
+
+    public static SpawnTimerData get(MinecraftServer server) {
+        return server.overworld().getDataStorage().computeIfAbsent(factory(), DATA_NAME);
+    }
+
+    public static SavedData.Factory<SpawnTimerData> factory() {
+        return new SavedData.Factory<>(SpawnTimerData::new, SpawnTimerData::load);
+    }
+
+    public static SpawnTimerData load(CompoundTag tag, HolderLookup.Provider registries) {
+        SpawnTimerData data = new SpawnTimerData();
+        ListTag entries = tag.getList(ENTRIES_TAG, Tag.TAG_COMPOUND);
+
+        for (int i = 0; i < entries.size(); i++) {
+            CompoundTag entry = entries.getCompound(i);
+            if (entry.hasUUID(PLAYER_TAG)) {
+                data.timers.put(entry.getUUID(PLAYER_TAG), new SpawnTimer(
+                        entry.getLong(TIME_TAG),
+                        entry.getLong(PENDING_TAG),
+                        entry.getBoolean(PAUSED_TAG)
+                ));
+            }
+        }
+
+        return data;
+    }
+
+    @Override
+    public CompoundTag save(CompoundTag tag, HolderLookup.Provider registries) {
+        ListTag entries = new ListTag();
+
+        for (Map.Entry<UUID, SpawnTimer> timer : timers.entrySet()) {
+            CompoundTag entry = new CompoundTag();
+            entry.putUUID(PLAYER_TAG, timer.getKey());
+            entry.putLong(TIME_TAG, timer.getValue().time());
+            entry.putLong(PENDING_TAG, timer.getValue().pendingDelay());
+            entry.putBoolean(PAUSED_TAG, timer.getValue().paused());
+            entries.add(entry);
+        }
+
+        tag.put(ENTRIES_TAG, entries);
+        return tag;
+    }
+
+    public Optional<SpawnTimer> getTimer(UUID playerUUID) {
+        return Optional.ofNullable(timers.get(playerUUID));
+    }
+
+    public void setTimer(UUID playerUUID, SpawnTimer timer) {
+        if (!timer.equals(timers.put(playerUUID, timer))) {
+            setDirty();
+        }
+    }
+
+    public void clear(UUID playerUUID) {
+        if (timers.remove(playerUUID) != null) {
+            setDirty();
+        }
+    }
+
+    public void clearAll() {
+        if (!timers.isEmpty()) {
+            timers.clear();
+            setDirty();
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.styenvy.egshiny.data.storage;
+
+import com.styenvy.egshiny.data.PlayerFlagStore;
+
+import java.io.IOException;
+
+/**
+ * A {@link PlayerPreferenceStorage} that is read in full up front. Storages that only implement the base interface are
+ * read one player at a time with {@link #load}, when the player is needed.
+ */
+public interface BulkPreferenceStorage extends PlayerPreferenceStorage {
+    /**
+     * Reads every stored player into {@code target}.
+     */
+    void loadAll(PlayerFlagStore target) throws IOException;
+}
@@ -0,0 +1,209 @@
+package com.styenvy.egshiny.data.storage;
+
+import com.styenvy.egshiny.EGShiny;
+import com.styenvy.egshiny.data.PlayerFlagStore;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Preferences in a table of an embedded database such as SQLite or H2, read when a player is needed. Several servers
+ * pointed at the same database share one set of preferences: a player is read fresh on login, and only the rows of
+ * players who changed something are written back.
+ *
+ * The JDBC driver is not bundled; it has to be on the server's classpath. Only portable SQL is used, so any driver
+ * should work. A relative SQLite or H2 file path is resolved against the world's {@code data} folder, like the other
+ * backends' files, so a shared store needs an absolute path or a server URL. The world's single-file data is
+ * imported once when the storage is first opened.
+ */
+public final class JdbcStorage implements PlayerPreferenceStorage {
+    private static final String CREATE_TABLE = "CREATE TABLE IF NOT EXISTS egshiny_player_flags ("
+            + "player_most BIGINT NOT NULL, player_least BIGINT NOT NULL, flags SMALLINT NOT NULL, "
+            + "PRIMARY KEY (player_most, player_least))";
+    private static final String SELECT = "SELECT flags FROM egshiny_player_flags WHERE player_most = ? AND player_least = ?";
+    private static final String UPDATE = "UPDATE egshiny_player_flags SET flags = ? WHERE player_most = ? AND player_least = ?";
+    private static final String INSERT = "INSERT INTO egshiny_player_flags (flags, player_most, player_least) VALUES (?, ?, ?)";
+    private static final String DELETE = "DELETE FROM egshiny_player_flags WHERE player_most = ? AND player_least = ?";
+
+    // Longest first, so "jdbc:h2:file:" is not read as an H2 path starting with "file:"
+    private static final List<String> FILE_URL_PREFIXES = List.of("jdbc:h2:file:", "jdbc:sqlite:", "jdbc:h2:");
+
+    private final String url;
+    private final Path dataDir;
+    @Nullable
+    private Connection connection;
+
+    public JdbcStorage(String url, Path dataDir) {
+        this.url = resolveUrl(url, dataDir);
+        this.dataDir = dataDir;
+    }
+
+    /**
+     * Points a relative database file of a SQLite or H2 URL at the world's {@code data} folder, so the default URL
+     * does not depend on the directory the server was started from. Other URLs, in-memory databases and absolute
+     * paths are returned unchanged.
+     */
+    static String resolveUrl(String url, Path dataDir) {
+        for (String prefix : FILE_URL_PREFIXES) {
+            if (!url.startsWith(prefix)) {
+                continue;
+            }
+
+            String location = url.substring(prefix.length());
+            // ":memory:", sub-protocols such as "mem:" or "tcp:", and home-relative H2 paths
+            if (location.isEmpty() || location.startsWith(":") || location.startsWith("~")
+                    || location.matches("[A-Za-z]{2,}:.*")) {
+                return url;
+            }
+
+            // Connection options follow the path: "?" for SQLite, ";" for H2
+            int optionsStart = location.length();
+            for (int i = 0; i < location.length(); i++) {
+                char c = location.charAt(i);
+                if (c == '?' || c == ';') {
+                    optionsStart = i;
+                    break;
+                }
+            }
+
+            try {
+                Path path = Path.of(location.substring(0, optionsStart));
+                if (path.isAbsolute()) {
+                    return url;
+                }
+                return prefix + dataDir.resolve(path).toAbsolutePath() + location.substring(optionsStart);
+            } catch (InvalidPathException e) {
+                return url;
+            }
+        }
+        return url;
+    }
+
+    @Override
+    public void open() throws IOException {
+        try {
+            connection = DriverManager.getConnection(url);
+            try (Statement statement = connection.createStatement()) {
+                statement.execute(CREATE_TABLE);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to open shiny preference database " + url, e);
+        }
+
+        migrateFiles();
+    }
+
+    /**
+     * Imports the world's single-file data (snapshot with its journal, or legacy JSON), then renames the files so
+     * this only happens once.
+     */
+    private void migrateFiles() {
+        PlayerFlagStore migrated = new PlayerFlagStore();
+        List<Path> sources = PreferenceFiles.readExisting(dataDir, migrated);
+        if (sources.isEmpty()) {
+            return;
+        }
+
+        try {
+            Map<UUID, Byte> changes = new HashMap<>();
+            migrated.forEach((most, least, flags) -> changes.put(new UUID(most, least), flags));
+            save(changes);
+            PreferenceFiles.retire(sources);
+            EGShiny.LOGGER.info("Migrated shiny preferences of {} players to {}", migrated.size(), url);
+        } catch (IOException e) {
+            // The old files are left in place, so the next start tries again
+            EGShiny.LOGGER.error("Failed to migrate player shiny data to {}", url, e);
+        }
+    }
+
+    @Override
+    public byte load(UUID playerUUID) throws IOException {
+        try (PreparedStatement select = getConnection().prepareStatement(SELECT)) {
+            select.setLong(1, playerUUID.getMostSignificantBits());
+            select.setLong(2, playerUUID.getLeastSignificantBits());
+            try (ResultSet result = select.executeQuery()) {
+                return result.next() ? (byte) result.getShort(1) : 0;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to load shiny preferences of player " + playerUUID, e);
+        }
+    }
+
+    /**
+     * Writes the whole batch in one transaction: players back on the defaults are deleted, the rest updated or
+     * inserted.
+     */
+    @Override
+    public void save(Map<UUID, Byte> changes) throws IOException {
+        Connection connection = getConnection();
+        try {
+            connection.setAutoCommit(false);
+            try (PreparedStatement update = connection.prepareStatement(UPDATE);
+                 PreparedStatement insert = connection.prepareStatement(INSERT);
+                 PreparedStatement delete = connection.prepareStatement(DELETE)) {
+                for (Map.Entry<UUID, Byte> change : changes.entrySet()) {
+                    long most = change.getKey().getMostSignificantBits();
+                    long least = change.getKey().getLeastSignificantBits();
+                    if (change.getValue() == 0) {
+                        delete.setLong(1, most);
+                        delete.setLong(2, least);
+                        delete.executeUpdate();
+                        continue;
+                    }
+
+                    update.setShort(1, change.getValue());
+                    update.setLong(2, most);
+                    update.setLong(3, least);
+                    if (update.executeUpdate() == 0) {
+                        insert.setShort(1, change.getValue());
+                        insert.setLong(2, most);
+                        insert.setLong(3, least);
+                        insert.executeUpdate();
+                    }
+                }
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            } finally {
+                connection.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to save shiny preferences of " + changes.size() + " players", e);
+        }
+    }
+
+    private Connection getConnection() throws IOException {
+        if (connection == null) {
+            throw new IOException("Shiny preference database is not open");
+        }
+        return connection;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (connection == null) {
+            return;
+        }
+
+        try {
+            connection.close();
+        } catch (SQLException e) {
+            throw new IOException("Failed to close shiny preference database " + url, e);
+        } finally {
+            connection = null;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.styenvy.egshiny.data.storage;
+
+import com.styenvy.egshiny.data.PlayerFlagStore;
+
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Keeps preferences in memory only; nothing survives a restart. Not offered in the config: it only stands in
+ * when the configured storage cannot be opened, and for comparing the other backends against a storage that does no
+ * I/O.
+ */
+public final class MemoryStorage implements BulkPreferenceStorage {
+    private final PlayerFlagStore flags = new PlayerFlagStore();
+
+    @Override
+    public void open() {
+    }
+
+    @Override
+    public void loadAll(PlayerFlagStore target) {
+        flags.forEach(target::put);
+    }
+
+    @Override
+    public byte load(UUID playerUUID) {
+        return flags.get(playerUUID);
+    }
+
+    @Override
+    public void save(Map<UUID, Byte> changes) {
+        changes.forEach((playerUUID, value) ->
+                flags.put(playerUUID.getMostSignificantBits(), playerUUID.getLeastSignificantBits(), value));
+    }
+
+    @Override
+    public void close() {
+        flags.clear();
+    }
+}
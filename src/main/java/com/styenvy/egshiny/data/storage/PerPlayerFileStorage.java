@@ -0,0 +1,115 @@
+package com.styenvy.egshiny.data.storage;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParseException;
+import com.styenvy.egshiny.EGShiny;
+import com.styenvy.egshiny.data.PlayerFlagStore;
+import net.minecraft.util.GsonHelper;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * One small JSON record per player under {@code data/egshiny_players/}, sharded by the first two characters of their
+ * UUID, read when the player is needed. The single-file data is migrated once when this storage is first used.
+ */
+public final class PerPlayerFileStorage implements PlayerPreferenceStorage {
+    private static final Gson GSON = new Gson();
+    private static final String PLAYER_DIR_NAME = "egshiny_players";
+    private static final String ENABLED_KEY = "enabled";
+    private static final String HARD_KEY = "hard";
+
+    private final Path dataDir;
+    private final Path playerDir;
+
+    public PerPlayerFileStorage(Path dataDir) {
+        this.dataDir = dataDir;
+        this.playerDir = dataDir.resolve(PLAYER_DIR_NAME);
+    }
+
+    /**
+     * Moves the single-file data (snapshot with its journal, or legacy JSON) into per-player records, then renames
+     * the old files so this only happens once.
+     */
+    @Override
+    public void open() {
+        PlayerFlagStore migrated = new PlayerFlagStore();
+        List<Path> sources = PreferenceFiles.readExisting(dataDir, migrated);
+        if (sources.isEmpty()) {
+            return;
+        }
+
+        try {
+            IOException[] failure = new IOException[1];
+            migrated.forEach((most, least, flags) -> {
+                if (failure[0] == null) {
+                    try {
+                        writeRecord(new UUID(most, least), flags);
+                    } catch (IOException e) {
+                        failure[0] = e;
+                    }
+                }
+            });
+            if (failure[0] != null) {
+                throw failure[0];
+            }
+
+            PreferenceFiles.retire(sources);
+            EGShiny.LOGGER.info("Migrated shiny preferences of {} players to per-player records", migrated.size());
+        } catch (IOException e) {
+            // The old files are left in place, so the next start tries again
+            EGShiny.LOGGER.error("Failed to migrate player shiny data to per-player records", e);
+        }
+    }
+
+    @Override
+    public byte load(UUID playerUUID) throws IOException {
+        Path file = getRecordFile(playerUUID);
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        try (var reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonObject json = GsonHelper.parse(reader);
+            byte flags = 0;
+            if (!GsonHelper.getAsBoolean(json, ENABLED_KEY, true)) {
+                flags |= PlayerFlagStore.DISABLED;
+            }
+            if (GsonHelper.getAsBoolean(json, HARD_KEY, false)) {
+                flags |= PlayerFlagStore.HARD;
+            }
+            return flags;
+        } catch (JsonParseException e) {
+            throw new IOException("Invalid shiny preference record " + file, e);
+        }
+    }
+
+    @Override
+    public void save(Map<UUID, Byte> changes) throws IOException {
+        for (Map.Entry<UUID, Byte> change : changes.entrySet()) {
+            writeRecord(change.getKey(), change.getValue());
+        }
+    }
+
+    private void writeRecord(UUID playerUUID, byte flags) throws IOException {
+        JsonObject json = new JsonObject();
+        json.addProperty(ENABLED_KEY, (flags & PlayerFlagStore.DISABLED) == 0);
+        json.addProperty(HARD_KEY, (flags & PlayerFlagStore.HARD) != 0);
+        PreferenceFiles.writeAtomically(getRecordFile(playerUUID), GSON.toJson(json).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Path getRecordFile(UUID playerUUID) {
+        String name = playerUUID.toString();
+        return playerDir.resolve(name.substring(0, 2)).resolve(name + ".json");
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -0,0 +1,34 @@
+package com.styenvy.egshiny.data.storage;
+
+import com.styenvy.egshiny.data.PlayerFlagStore;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Where player preference flags are persisted, read one player at a time. See {@link PlayerFlagStore} for the flag
+ * bits, and {@link BulkPreferenceStorage} for storages that are read in full up front.
+ *
+ * Every method does I/O; callers run them through a {@link PreferenceStorageExecutor}, which calls them one at a
+ * time, so implementations need no locking of their own.
+ */
+public interface PlayerPreferenceStorage extends AutoCloseable {
+    /**
+     * Prepares the storage, migrating data left by older versions where needed. Called once before anything else.
+     */
+    void open() throws IOException;
+
+    /**
+     * @return The player's flags, or 0 if nothing is stored for them.
+     */
+    byte load(UUID playerUUID) throws IOException;
+
+    /**
+     * Stores the new flags of each changed player; 0 resets a player to the defaults.
+     */
+    void save(Map<UUID, Byte> changes) throws IOException;
+
+    @Override
+    void close() throws IOException;
+}
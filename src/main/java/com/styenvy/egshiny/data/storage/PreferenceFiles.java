@@ -0,0 +1,322 @@
+package com.styenvy.egshiny.data.storage;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.styenvy.egshiny.EGShiny;
+import com.styenvy.egshiny.data.PlayerFlagStore;
+import net.minecraft.Util;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * File formats shared by the storage backends: the single-file snapshot and journal, and the two JSON files older
+ * versions wrote. All files live in the world's {@code data} folder.
+ */
+final class PreferenceFiles {
+    static final String DATA_FILE_NAME = "egshiny_player_flags.dat";
+    static final String JOURNAL_FILE_NAME = "egshiny_player_flags.journal";
+    private static final String LEGACY_DATA_FILE_NAME = "egshiny_player_data.json";
+    private static final String LEGACY_HARD_DATA_FILE_NAME = "egshiny_player_hard_data.json";
+    private static final String MIGRATED_SUFFIX = ".migrated";
+    // "EGSF", followed by the format version
+    private static final int FILE_MAGIC = 0x45475346;
+    private static final byte FILE_VERSION = 1;
+
+    private PreferenceFiles() {
+    }
+
+    /**
+     * Reads whatever single-file data the world has, newest format last so it wins: the legacy JSON files, the
+     * snapshot, then the journal on top of it.
+     *
+     * @return The files that were found, for {@link #retire} once their data is stored elsewhere.
+     */
+    static List<Path> readExisting(Path dataDir, PlayerFlagStore target) {
+        List<Path> found = new ArrayList<>();
+        readLegacyFiles(dataDir, target, found);
+
+        Path dataFile = dataDir.resolve(DATA_FILE_NAME);
+        if (Files.exists(dataFile)) {
+            readDataFile(dataFile, target);
+            found.add(dataFile);
+        }
+
+        Path journalFile = dataDir.resolve(JOURNAL_FILE_NAME);
+        if (Files.exists(journalFile)) {
+            replayJournal(journalFile, target);
+            found.add(journalFile);
+        }
+        return found;
+    }
+
+    /**
+     * Reads the JSON files older versions wrote, adding the ones that exist to {@code found}. The two files are
+     * parsed in parallel, each into its own store, and merged afterwards; {@code target} should not hold any players
+     * yet, since a file can only set its flag, not clear one.
+     */
+    static void readLegacyFiles(Path dataDir, PlayerFlagStore target, List<Path> found) {
+        Path dataFile = dataDir.resolve(LEGACY_DATA_FILE_NAME);
+        Path hardDataFile = dataDir.resolve(LEGACY_HARD_DATA_FILE_NAME);
+        boolean hasDataFile = Files.exists(dataFile);
+        boolean hasHardDataFile = Files.exists(hardDataFile);
+
+        CompletableFuture<PlayerFlagStore> hardFlags = hasHardDataFile
+                ? CompletableFuture.supplyAsync(() -> readLegacyFile(hardDataFile, PlayerFlagStore.HARD, true, "hard-mode shiny"), Util.ioPool())
+                : CompletableFuture.completedFuture(new PlayerFlagStore());
+        PlayerFlagStore disabledFlags = hasDataFile
+                ? readLegacyFile(dataFile, PlayerFlagStore.DISABLED, false, "shiny mob")
+                : new PlayerFlagStore();
+
+        // Both files share the player table, so merge whichever flags each one set
+        disabledFlags.forEach(target::put);
+        hardFlags.join().forEach((most, least, flags) -> target.put(most, least, (byte) (target.get(most, least) | flags)));
+
+        if (hasDataFile) {
+            found.add(dataFile);
+        }
+        if (hasHardDataFile) {
+            found.add(hardDataFile);
+        }
+    }
+
+    /**
+     * Streams a legacy {@code {"<uuid>": <boolean>}} file straight into a flag store, without building a map of the
+     * whole file first.
+     *
+     * @param flagValue The JSON value that sets {@code flag}; the enabled file stores true for players that are
+     *                  not disabled.
+     * @return Every player the file sets {@code flag} for; whatever was read before an error is kept.
+     */
+    private static PlayerFlagStore readLegacyFile(Path file, byte flag, boolean flagValue, String description) {
+        PlayerFlagStore flags = new PlayerFlagStore();
+        int count = 0;
+        try (JsonReader reader = new JsonReader(Files.newBufferedReader(file, StandardCharsets.UTF_8))) {
+            // An empty file or a null document holds no players, as with the old map-based reader
+            if (Files.size(file) == 0 || reader.peek() == JsonToken.NULL) {
+                return flags;
+            }
+
+            reader.beginObject();
+            while (reader.hasNext()) {
+                String key = reader.nextName();
+                Boolean value = readBoolean(reader);
+                UUID uuid = parseUUID(key);
+                if (uuid == null) {
+                    EGShiny.LOGGER.warn("Invalid UUID in {} player data: {}", description, key);
+                    continue;
+                }
+
+                count++;
+                if (value != null && value == flagValue) {
+                    flags.put(uuid.getMostSignificantBits(), uuid.getLeastSignificantBits(), flag);
+                }
+            }
+            reader.endObject();
+            EGShiny.LOGGER.info("Read legacy {} data for {} players", description, count);
+        } catch (IOException | IllegalStateException | JsonParseException e) {
+            EGShiny.LOGGER.error("Failed to load {} player data", description, e);
+        }
+        return flags;
+    }
+
+    /**
+     * @return The value, or null for JSON null. Strings are read the way Gson reads a {@code Boolean}.
+     */
+    @Nullable
+    private static Boolean readBoolean(JsonReader reader) throws IOException {
+        return switch (reader.peek()) {
+            case BOOLEAN -> reader.nextBoolean();
+            case STRING -> Boolean.parseBoolean(reader.nextString());
+            case NULL -> {
+                reader.nextNull();
+                yield null;
+            }
+            default -> throw new IllegalStateException("Expected a boolean at " + reader.getPath());
+        };
+    }
+
+    /**
+     * Parses the canonical 36-character UUID form directly, so bad keys cost no exception. Anything else goes through
+     * {@link UUID#fromString}, which also accepts shortened groups.
+     *
+     * @return The UUID, or null if the key is not one.
+     */
+    @Nullable
+    static UUID parseUUID(String key) {
+        if (key.length() == 36 && key.charAt(8) == '-' && key.charAt(13) == '-' && key.charAt(18) == '-'
+                && key.charAt(23) == '-') {
+            long most = parseHex(key, 0, 8);
+            long mid = parseHex(key, 9, 13);
+            long high = parseHex(key, 14, 18);
+            long clock = parseHex(key, 19, 23);
+            long node = parseHex(key, 24, 36);
+            if (most < 0 || mid < 0 || high < 0 || clock < 0 || node < 0) {
+                return null;
+            }
+            return new UUID(most << 32 | mid << 16 | high, clock << 48 | node);
+        }
+
+        try {
+            return UUID.fromString(key);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return The value of at most 15 hex digits, or -1 if any character is not a hex digit.
+     */
+    private static long parseHex(String key, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(key.charAt(i), 16);
+            if (digit < 0) {
+                return -1;
+            }
+            value = value << 4 | digit;
+        }
+        return value;
+    }
+
+    static void readDataFile(Path file, PlayerFlagStore target) {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (input.readInt() != FILE_MAGIC) {
+                throw new IOException("Not a shiny player data file");
+            }
+
+            byte version = input.readByte();
+            if (version != FILE_VERSION) {
+                throw new IOException("Unsupported shiny player data version " + version);
+            }
+
+            target.read(input);
+        } catch (IOException e) {
+            EGShiny.LOGGER.error("Failed to load shiny player data from {}", file, e);
+        }
+    }
+
+    /**
+     * Applies the journal's records to {@code target}, in the order they were written. A partial record at the end,
+     * left by a crash mid-append, is cut off, so records appended later line up again.
+     *
+     * @return The number of records applied.
+     */
+    static int replayJournal(Path file, PlayerFlagStore target) {
+        if (!Files.exists(file)) {
+            return 0;
+        }
+
+        try {
+            long size = Files.size(file);
+            int count = (int) (size / PlayerFlagStore.ENTRY_BYTES);
+            if (size % PlayerFlagStore.ENTRY_BYTES != 0) {
+                EGShiny.LOGGER.warn("Dropping a partial record at the end of the shiny preference journal");
+                try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+                    channel.truncate((long) count * PlayerFlagStore.ENTRY_BYTES);
+                    channel.force(false);
+                }
+            }
+
+            try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+                for (int i = 0; i < count; i++) {
+                    target.put(input.readLong(), input.readLong(), input.readByte());
+                }
+            }
+            return count;
+        } catch (IOException e) {
+            EGShiny.LOGGER.error("Failed to replay the shiny preference journal", e);
+            return 0;
+        }
+    }
+
+    static byte[] encode(PlayerFlagStore flags) throws IOException {
+        // Header, entry count, then the entries
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(9 + flags.size() * PlayerFlagStore.ENTRY_BYTES);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(FILE_MAGIC);
+        output.writeByte(FILE_VERSION);
+        flags.write(output);
+        return bytes.toByteArray();
+    }
+
+    static void truncate(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.force(false);
+        }
+    }
+
+    /**
+     * Renames files whose data has been migrated, so the migration only happens once.
+     */
+    static void retire(List<Path> files) throws IOException {
+        for (Path file : files) {
+            if (Files.exists(file)) {
+                Files.move(file, file.resolveSibling(file.getFileName() + MIGRATED_SUFFIX), StandardCopyOption.REPLACE_EXISTING);
+            }
+        }
+    }
+
+    /**
+     * Writes to a temporary file next to the target and moves it into place, so a crash mid-write never leaves a
+     * truncated file behind. The temporary file is synced before the move and the directory after it, so once this
+     * returns the new content survives a power loss.
+     */
+    static void writeAtomically(Path file, byte[] content) throws IOException {
+        // Ensure directory exists
+        Path parent = file.getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+
+        Path tempFile = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(tempFile, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        if (parent != null) {
+            syncDirectory(parent);
+        }
+    }
+
+    /**
+     * Syncs a directory so a rename inside it is durable. Not every platform can open a directory (Windows cannot),
+     * so this is best effort.
+     */
+    private static void syncDirectory(Path directory) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException e) {
+            EGShiny.LOGGER.debug("Could not sync directory {}", directory, e);
+        }
+    }
+}
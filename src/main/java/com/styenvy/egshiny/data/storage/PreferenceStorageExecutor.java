@@ -0,0 +1,116 @@
+package com.styenvy.egshiny.data.storage;
+
+import com.styenvy.egshiny.EGShiny;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs a {@link PlayerPreferenceStorage} off the server thread. Writes are batched: each player's newest flags wait in
+ * a map until the next drain, so a burst of changes costs one {@link PlayerPreferenceStorage#save} call. Reads see
+ * every write queued before them, whether or not it has reached the storage yet.
+ */
+public final class PreferenceStorageExecutor {
+    private final PlayerPreferenceStorage storage;
+    private final Executor executor;
+    // Newest flags of each player waiting to be saved
+    private final Map<UUID, Byte> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean drainQueued = new AtomicBoolean();
+    // Storage calls run one at a time
+    private final Object lock = new Object();
+
+    public PreferenceStorageExecutor(PlayerPreferenceStorage storage, Executor executor) {
+        this.storage = storage;
+        this.executor = executor;
+    }
+
+    /**
+     * Queues a player's new flags; a newer value replaces one that is still waiting.
+     */
+    public void write(UUID playerUUID, byte flags) {
+        pending.put(playerUUID, flags);
+        if (drainQueued.compareAndSet(false, true)) {
+            executor.execute(this::drain);
+        }
+    }
+
+    /**
+     * Reads a player's flags on the executor. Storage errors are logged and read as the defaults.
+     */
+    public CompletableFuture<Byte> read(UUID playerUUID) {
+        Byte queued = pending.get(playerUUID);
+        if (queued != null) {
+            return CompletableFuture.completedFuture(queued);
+        }
+        return CompletableFuture.supplyAsync(() -> readNow(playerUUID), executor);
+    }
+
+    private byte readNow(UUID playerUUID) {
+        synchronized (lock) {
+            // A drain removes values from the map only while holding the lock, so anything missing here is stored
+            Byte queued = pending.get(playerUUID);
+            if (queued != null) {
+                return queued;
+            }
+
+            try {
+                return storage.load(playerUUID);
+            } catch (IOException e) {
+                EGShiny.LOGGER.error("Failed to load shiny preferences of player {}", playerUUID, e);
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Saves every queued write on the calling thread, waiting for a drain that is in progress.
+     */
+    public void flush() {
+        drain();
+    }
+
+    public void close() {
+        flush();
+        synchronized (lock) {
+            try {
+                storage.close();
+            } catch (IOException e) {
+                EGShiny.LOGGER.error("Failed to close shiny preference storage", e);
+            }
+        }
+    }
+
+    private void drain() {
+        // Anything queued from here on needs another drain
+        drainQueued.set(false);
+
+        synchronized (lock) {
+            if (pending.isEmpty()) {
+                return;
+            }
+
+            Map<UUID, Byte> batch = new HashMap<>();
+            for (UUID playerUUID : pending.keySet()) {
+                Byte flags = pending.remove(playerUUID);
+                if (flags != null) {
+                    batch.put(playerUUID, flags);
+                }
+            }
+
+            try {
+                storage.save(batch);
+                EGShiny.LOGGER.debug("Saved shiny preferences for {} players", batch.size());
+            } catch (IOException e) {
+                EGShiny.LOGGER.error("Failed to save player shiny data", e);
+                // Retried with the next write, unless that player has changed again since
+                batch.forEach(pending::putIfAbsent);
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.styenvy.egshiny.data.storage;
+
+import com.styenvy.egshiny.EGShiny;
+import com.styenvy.egshiny.data.PlayerFlagStore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Every player in one binary snapshot, loaded in full at startup. Changes are appended to a journal of fixed-size
+ * records, which is folded into the snapshot once it grows past {@link #COMPACT_THRESHOLD_BYTES} and replayed on open
+ * if the server stopped before that.
+ */
+public final class SingleFileStorage implements BulkPreferenceStorage {
+    // About 3800 changes
+    private static final int COMPACT_THRESHOLD_BYTES = 64 * 1024;
+
+    private final Path dataFile;
+    private final Path journalFile;
+    private final Path dataDir;
+    // Copy of what is on disk, so compaction never needs the caller's data
+    private final PlayerFlagStore flags = new PlayerFlagStore();
+    private long journalBytes;
+
+    public SingleFileStorage(Path dataDir) {
+        this.dataDir = dataDir;
+        this.dataFile = dataDir.resolve(PreferenceFiles.DATA_FILE_NAME);
+        this.journalFile = dataDir.resolve(PreferenceFiles.JOURNAL_FILE_NAME);
+    }
+
+    @Override
+    public void open() throws IOException {
+        if (Files.exists(dataFile)) {
+            PreferenceFiles.readDataFile(dataFile, flags);
+            EGShiny.LOGGER.info("Loaded shiny preferences for {} players", flags.size());
+        } else {
+            List<Path> legacyFiles = new ArrayList<>();
+            PreferenceFiles.readLegacyFiles(dataDir, flags, legacyFiles);
+            if (!legacyFiles.isEmpty()) {
+                migrateLegacyFiles(legacyFiles);
+            } else {
+                EGShiny.LOGGER.info("No existing shiny player data found, starting fresh");
+            }
+        }
+
+        int replayed = PreferenceFiles.replayJournal(journalFile, flags);
+        if (replayed > 0) {
+            EGShiny.LOGGER.info("Replayed {} shiny preference changes from the journal", replayed);
+            try {
+                compact();
+            } catch (IOException e) {
+                // The journal is kept, so the changes are replayed again next time
+                EGShiny.LOGGER.error("Failed to compact the shiny preference journal", e);
+            }
+        }
+        // Whatever is still in the journal counts towards the next compaction
+        journalBytes = Files.exists(journalFile) ? Files.size(journalFile) : 0;
+    }
+
+    /**
+     * Writes the flags read from the JSON files to the snapshot, then renames the JSON files so this only happens
+     * once.
+     */
+    private void migrateLegacyFiles(List<Path> legacyFiles) {
+        try {
+            PreferenceFiles.writeAtomically(dataFile, PreferenceFiles.encode(flags));
+            PreferenceFiles.retire(legacyFiles);
+            EGShiny.LOGGER.info("Migrated shiny preferences of {} players to {}", flags.size(), PreferenceFiles.DATA_FILE_NAME);
+        } catch (IOException e) {
+            // The old files are left in place, so the next start tries again
+            EGShiny.LOGGER.error("Failed to migrate player shiny data to {}", PreferenceFiles.DATA_FILE_NAME, e);
+        }
+    }
+
+    @Override
+    public void loadAll(PlayerFlagStore target) {
+        flags.forEach(target::put);
+    }
+
+    @Override
+    public byte load(UUID playerUUID) {
+        return flags.get(playerUUID);
+    }
+
+    /**
+     * Appends one record per changed player and syncs the journal. The snapshot is only rewritten once every record
+     * is on disk, so replaying the journal over it after a crash between the two steps still ends at the same values.
+     */
+    @Override
+    public void save(Map<UUID, Byte> changes) throws IOException {
+        // Same layout as the snapshot entries: both UUID halves, then the player's new flags
+        ByteBuffer entries = ByteBuffer.allocate(changes.size() * PlayerFlagStore.ENTRY_BYTES);
+        for (Map.Entry<UUID, Byte> change : changes.entrySet()) {
+            UUID playerUUID = change.getKey();
+            entries.putLong(playerUUID.getMostSignificantBits())
+                    .putLong(playerUUID.getLeastSignificantBits())
+                    .put(change.getValue());
+            flags.put(playerUUID.getMostSignificantBits(), playerUUID.getLeastSignificantBits(), change.getValue());
+        }
+        entries.flip();
+
+        Files.createDirectories(dataDir);
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.APPEND)) {
+            while (entries.hasRemaining()) {
+                channel.write(entries);
+            }
+            channel.force(false);
+        }
+
+        journalBytes += entries.limit();
+        if (journalBytes >= COMPACT_THRESHOLD_BYTES) {
+            compact();
+        }
+    }
+
+    private void compact() throws IOException {
+        PreferenceFiles.writeAtomically(dataFile, PreferenceFiles.encode(flags));
+        // Everything in the journal is in the snapshot now, and the snapshot is on disk
+        PreferenceFiles.truncate(journalFile);
+        journalBytes = 0;
+        EGShiny.LOGGER.debug("Compacted shiny preferences for {} players", flags.size());
+    }
+
+    @Override
+    public void close() {
+    }
+}
@@ -1,13 +1,17 @@
 package com.styenvy.egshiny.events;
 
 import com.styenvy.egshiny.EGShiny;
-import com.styenvy.egshiny.config.ShinyConfig;
+import com.styenvy.egshiny.config.ShinySettings;
 import com.styenvy.egshiny.data.ActiveShinyData;
 import com.styenvy.egshiny.data.PlayerShinyData;
+import com.styenvy.egshiny.spawn.ShinySpawnManager;
+import com.styenvy.egshiny.tracking.ShinyOwnerTracker;
+import com.styenvy.egshiny.tracking.ShinyTracker;
 import com.styenvy.egshiny.util.ShinyMobHelper;
 import com.styenvy.egshiny.util.ShinyProfile;
 import com.styenvy.egshiny.util.ShinyProfileRegistry;
 import net.minecraft.ChatFormatting;
+import net.minecraft.commands.Commands;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.network.chat.Component;
 import net.minecraft.resources.ResourceKey;
@@ -24,11 +28,11 @@ import net.minecraft.world.level.storage.loot.parameters.LootContextParamSets;
 import net.minecraft.world.level.storage.loot.parameters.LootContextParams;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.neoforge.event.entity.EntityJoinLevelEvent;
+import net.neoforged.neoforge.event.entity.EntityLeaveLevelEvent;
 import net.neoforged.neoforge.event.entity.living.LivingDamageEvent;
 import net.neoforged.neoforge.event.entity.living.LivingDeathEvent;
 import net.neoforged.neoforge.event.entity.player.PlayerEvent;
 
-import java.util.Map;
 import java.util.UUID;
 
 public class ShinyEventHandler {
@@ -46,21 +50,17 @@ public class ShinyEventHandler {
         }
 
         // Find which player owns this shiny mob
-        UUID ownerUUID = null;
-        for (Map.Entry<UUID, Entity> entry : EGShiny.PLAYER_SHINY_MOBS.entrySet()) {
-            if (entry.getValue() == entity) {
-                ownerUUID = entry.getKey();
-                break;
-            }
-        }
+        UUID ownerUUID = ShinyOwnerTracker.untrackEntity(entity);
 
         if (ownerUUID != null) {
-            EGShiny.PLAYER_SHINY_MOBS.remove(ownerUUID);
             ActiveShinyData.get(serverLevel.getServer()).clear(ownerUUID);
+            ShinySpawnManager.onShinyGone(serverLevel.getServer(), ownerUUID);
             EGShiny.LOGGER.debug("Shiny mob died, removed from tracking for player {}", ownerUUID);
         } else {
-            ShinyMobHelper.getOwner(entity)
-                    .ifPresent(owner -> ActiveShinyData.get(serverLevel.getServer()).clear(owner));
+            ShinyMobHelper.getOwner(entity).ifPresent(owner -> {
+                ActiveShinyData.get(serverLevel.getServer()).clear(owner);
+                ShinySpawnManager.onShinyGone(serverLevel.getServer(), owner);
+            });
         }
 
         ShinyMobHelper.cleanupShinyVisuals(entity, serverLevel);
@@ -79,13 +79,14 @@ public class ShinyEventHandler {
 
     @SubscribeEvent
     public void onLivingDamage(LivingDamageEvent.Pre event) {
-        if (event.getEntity().level().isClientSide()) {
+        // Runs for every hit on the server; nothing to do while no shiny is loaded
+        if (!ShinyTracker.hasLoadedShinies() || event.getEntity().level().isClientSide()) {
             return;
         }
 
         // Apply extra effects when a shiny mob attacks
-        if (event.getSource().getEntity() instanceof LivingEntity attacker && ShinyMobHelper.isShiny(attacker)) {
-            if (event.getEntity() instanceof Player player && ShinyConfig.DAMAGE_MULTIPLIER.get() > 1.0) {
+        if (event.getSource().getEntity() instanceof LivingEntity attacker && ShinyTracker.isLoadedShiny(attacker)) {
+            if (event.getEntity() instanceof Player player && ShinySettings.get().damageMultiplier() > 1.0) {
                 // Light the player on fire for 3 seconds
                 player.setRemainingFireTicks(60);
             }
@@ -95,15 +96,15 @@ public class ShinyEventHandler {
     @SubscribeEvent
     public void onPlayerLogout(PlayerEvent.PlayerLoggedOutEvent event) {
         if (event.getEntity() instanceof ServerPlayer player) {
-            UUID playerUUID = player.getUUID();
-
-            // Don't remove the mob, just log that the timer is effectively paused
-            if (EGShiny.PLAYER_SPAWN_TIMERS.containsKey(playerUUID)) {
+            // Don't remove the mob, just pause the timer until the player is back
+            if (ShinySpawnManager.pauseTimer(player)) {
                 EGShiny.LOGGER.debug(
                         "Player {} logged out, pausing shiny spawn timer",
                         player.getName().getString()
                 );
             }
+
+            PlayerShinyData.onPlayerLogout(player.getServer(), player.getUUID());
         }
     }
 
@@ -111,13 +112,26 @@ public class ShinyEventHandler {
     public void onPlayerLogin(PlayerEvent.PlayerLoggedInEvent event) {
         if (event.getEntity() instanceof ServerPlayer player) {
             UUID playerUUID = player.getUUID();
+            if (PlayerShinyData.isStorageUnavailable() && player.hasPermissions(Commands.LEVEL_GAMEMASTERS)) {
+                player.sendSystemMessage(
+                        Component.literal("Shiny preference storage could not be opened; /shiny changes will not be saved. See the server log.")
+                                .withStyle(ChatFormatting.RED)
+                );
+            }
+
+            // The timer depends on the player's preferences, which may still be read in the background
+            PlayerShinyData.onPlayerLogin(playerUUID, () -> {
+                if (!player.hasDisconnected()) {
+                    ShinySpawnManager.startTimer(player);
+                }
+            });
 
             // Check if player has an existing shiny mob
-            if (EGShiny.PLAYER_SHINY_MOBS.containsKey(playerUUID)) {
-                Entity shinyMob = EGShiny.PLAYER_SHINY_MOBS.get(playerUUID);
-                if (shinyMob == null || !shinyMob.isAlive()) {
+            Entity shinyMob = ShinyOwnerTracker.getEntity(playerUUID);
+            if (shinyMob != null) {
+                if (!shinyMob.isAlive()) {
                     // Clean up dead reference
-                    EGShiny.PLAYER_SHINY_MOBS.remove(playerUUID);
+                    ShinyOwnerTracker.untrackOwner(playerUUID);
                 } else {
                     // Notify player they still have an active shiny
                     player.sendSystemMessage(
@@ -136,7 +150,7 @@ public class ShinyEventHandler {
                             return;
                         }
 
-                        EGShiny.PLAYER_SHINY_MOBS.put(playerUUID, living);
+                        ShinyOwnerTracker.track(playerUUID, living);
                     }
 
                     player.sendSystemMessage(
@@ -154,17 +168,26 @@ public class ShinyEventHandler {
             return;
         }
 
+        ShinyMobHelper.migrateLegacyData(living);
         if (!ShinyMobHelper.isShiny(living)) {
             return;
         }
 
         ShinyMobHelper.getOwner(living).ifPresent(ownerUUID -> {
             ActiveShinyData activeData = ActiveShinyData.get(level.getServer());
-            if (PlayerShinyData.isShinyDisabled(ownerUUID) && ShinyConfig.DISABLE_REMOVES_ACTIVE_SHINY.get()) {
-                ShinyMobHelper.cleanupShinyVisuals(living, level);
-                activeData.clear(ownerUUID);
-                living.discard();
-                return;
+            if (ShinySettings.get().disableRemovesActiveShiny()) {
+                // An offline owner's preferences are read in the background, and the mob removed once they arrive
+                PlayerShinyData.ifShinyDisabled(ownerUUID, () -> {
+                    if (!living.isRemoved()) {
+                        ShinyMobHelper.cleanupShinyVisuals(living, level);
+                        activeData.clear(ownerUUID);
+                        ShinyOwnerTracker.markGone(ownerUUID);
+                        living.discard();
+                    }
+                });
+                if (living.isRemoved()) {
+                    return;
+                }
             }
 
             if (activeData.getEntityUUID(ownerUUID)
@@ -173,8 +196,42 @@ public class ShinyEventHandler {
                 return;
             }
 
-            EGShiny.PLAYER_SHINY_MOBS.put(ownerUUID, living);
+            ShinyOwnerTracker.track(ownerUUID, living);
+            activeData.updateLocation(ownerUUID, living);
         });
+
+        if (!living.isRemoved()) {
+            ShinyTracker.onLoad(living);
+        }
+    }
+
+    @SubscribeEvent
+    public void onEntityLeaveLevel(EntityLeaveLevelEvent event) {
+        if (!(event.getLevel() instanceof ServerLevel level)) {
+            return;
+        }
+
+        Entity entity = event.getEntity();
+        ShinyTracker.onUnload(entity);
+        UUID ownerUUID = ShinyOwnerTracker.untrackEntity(entity);
+        if (ownerUUID == null) {
+            return;
+        }
+
+        ActiveShinyData activeData = ActiveShinyData.get(level.getServer());
+        Entity.RemovalReason reason = entity.getRemovalReason();
+        if (reason == null || reason.shouldSave()) {
+            // Unloaded with its chunk: remember which level, so lookups know where to look
+            ShinyOwnerTracker.markUnloaded(ownerUUID);
+            activeData.updateLocation(ownerUUID, entity);
+        } else if (reason == Entity.RemovalReason.CHANGED_DIMENSION) {
+            // Joins the new level right after this; its location is recorded then
+            ShinyOwnerTracker.markUnloaded(ownerUUID);
+        } else {
+            // Killed or discarded: the player no longer has a shiny
+            activeData.clear(ownerUUID);
+            ShinySpawnManager.onShinyGone(level.getServer(), ownerUUID);
+        }
     }
 
     private void giveShinyRewards(ServerPlayer player) {
@@ -1,16 +1,17 @@
 package com.styenvy.egshiny.spawn;
 
 import com.styenvy.egshiny.EGShiny;
-import com.styenvy.egshiny.config.ShinyConfig;
+import com.styenvy.egshiny.config.ShinySettings;
 import com.styenvy.egshiny.data.ActiveShinyData;
 import com.styenvy.egshiny.data.PlayerShinyData;
+import com.styenvy.egshiny.data.SpawnTimerData;
+import com.styenvy.egshiny.tracking.ShinyOwnerTracker;
+import com.styenvy.egshiny.tracking.ShinyPresence;
 import com.styenvy.egshiny.util.ShinyMobHelper;
-import com.styenvy.egshiny.util.ShinyProfile;
-import com.styenvy.egshiny.util.ShinyProfileRegistry;
 import net.minecraft.ChatFormatting;
 import net.minecraft.core.BlockPos;
-import net.minecraft.core.Direction;
 import net.minecraft.network.chat.Component;
+import net.minecraft.server.MinecraftServer;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
 import net.minecraft.world.BossEvent;
@@ -18,78 +19,320 @@ import net.minecraft.world.entity.EntityType;
 import net.minecraft.world.entity.LivingEntity;
 import net.minecraft.world.entity.Mob;
 import net.minecraft.world.entity.MobSpawnType;
-import net.minecraft.world.level.LightLayer;
-import net.minecraft.world.level.levelgen.Heightmap;
-import net.minecraft.world.phys.Vec3;
 import net.neoforged.bus.api.SubscribeEvent;
 import net.neoforged.neoforge.event.EventHooks;
+import net.neoforged.neoforge.event.level.BlockEvent;
+import net.neoforged.neoforge.event.level.ChunkEvent;
+import net.neoforged.neoforge.event.level.LevelEvent;
 import net.neoforged.neoforge.event.tick.ServerTickEvent;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
 
 public class ShinySpawnManager {
     private static final Random RANDOM = new Random();
-    private int tickCounter = 0;
+    private static final ShinySpawnScheduler SCHEDULER = new ShinySpawnScheduler();
+    // Natural spawns start searching for a position this many ticks before their deadline
+    private static final int SEARCH_LEAD_TICKS = 100;
+    // Chunk sections all running searches may snapshot per tick, and the most a single search may take of it; each
+    // chunk heightmap copied counts as one more section
+    private static final int SEARCH_BUDGET_PER_TICK = 64;
+    private static final int SEARCH_BUDGET_PER_SEARCH = 16;
+    private static final Map<UUID, PendingSpawn> PENDING_SPAWNS = new LinkedHashMap<>();
+    // Players held back by an active shiny, with the delay to start once it is gone; not in the schedule meanwhile
+    private static final Map<UUID, Long> PARKED = new HashMap<>();
+    // Columns sampled by finished spawn searches, and how many of them were skipped because their chunk was not loaded
+    private static long sampledColumns;
+    private static long skippedColumns;
+
+    private static final class PendingSpawn {
+        private final long spawnTick;
+        private SpawnSearch search;
+        private boolean retried;
+
+        private PendingSpawn(SpawnSearch search, long spawnTick) {
+            this.search = search;
+            this.spawnTick = spawnTick;
+        }
+    }
 
     @SubscribeEvent
     public void onServerTick(ServerTickEvent.Post event) {
-        if (!ShinyConfig.ENABLE_MOD.get()) {
+        ShinySettings settings = ShinySettings.get();
+        if (!settings.enableMod()) {
             return;
         }
 
-        tickCounter++;
-        // Check every second (20 ticks)
-        if (tickCounter % 20 != 0) {
-            return;
+        // Only players whose deadline has passed are visited
+        MinecraftServer server = event.getServer();
+        long now = getGameTime(server);
+        SCHEDULER.pollDue(now, entry -> processDueEntry(server, entry, now));
+
+        // Nothing holds timers back any more once one shiny per player is switched off
+        if (!PARKED.isEmpty() && !settings.oneShinyPerPlayer()) {
+            wakeAllParked(server);
         }
 
-        // Process each online player
-        for (ServerPlayer player : event.getServer().getPlayerList().getPlayers()) {
-            processPlayerSpawn(player);
+        if (!PENDING_SPAWNS.isEmpty()) {
+            advancePendingSpawns(server, now);
         }
     }
 
-    private void processPlayerSpawn(ServerPlayer player) {
-        UUID playerUUID = player.getUUID();
-        ServerLevel level = player.serverLevel();
+    @SubscribeEvent
+    public void onNeighborNotify(BlockEvent.NeighborNotifyEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            SpawnSpotIndex.invalidateAround(level, event.getPos());
+        }
+    }
+
+    @SubscribeEvent
+    public void onBlockPlace(BlockEvent.EntityPlaceEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            SpawnSpotIndex.invalidateAround(level, event.getPos());
+        }
+    }
+
+    @SubscribeEvent
+    public void onBlockBreak(BlockEvent.BreakEvent event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            SpawnSpotIndex.invalidateAround(level, event.getPos());
+        }
+    }
+
+    @SubscribeEvent
+    public void onChunkUnload(ChunkEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            SpawnSpotIndex.invalidateChunk(level, event.getChunk().getPos());
+        }
+    }
 
-        // Check if player has shinies disabled
+    @SubscribeEvent
+    public void onLevelUnload(LevelEvent.Unload event) {
+        if (event.getLevel() instanceof ServerLevel level) {
+            SpawnSpotIndex.invalidateLevel(level);
+        }
+    }
+
+    private void processDueEntry(MinecraftServer server, ShinySpawnScheduler.Entry entry, long now) {
+        UUID playerUUID = entry.playerUUID();
+        ServerPlayer player = server.getPlayerList().getPlayer(playerUUID);
+        if (player == null) {
+            return;
+        }
+
+        // Disabled players drop out of the schedule until they run /shiny on again
         if (PlayerShinyData.isShinyDisabled(playerUUID)) {
             return;
         }
 
-        // Check if player already has a shiny mob
-        if (ShinyConfig.ONE_SHINY_PER_PLAYER.get()) {
-            if (hasActiveShiny(player)) {
+        // While the player already has a shiny mob, the timer is parked until the shiny is gone.
+        // The persisted deadline is left alone, so holding costs no writes and no checks.
+        if (ShinySettings.get().oneShinyPerPlayer() && hasActiveShiny(playerUUID)) {
+            PARKED.put(playerUUID, entry.pendingDelay());
+            return;
+        }
+
+        SpawnTimerData timerData = SpawnTimerData.get(server);
+
+        // The player just became unblocked: start the countdown that was held back
+        if (entry.pendingDelay() > 0) {
+            setDeadline(timerData, playerUUID, now + entry.pendingDelay(), 0L);
+            return;
+        }
+
+        // Start looking for a spawn position now; the spawn itself happens at the deadline
+        SpawnSearch search = createSearch(player, player.serverLevel(), null);
+        PENDING_SPAWNS.put(playerUUID, new PendingSpawn(search, entry.dueTick() + SEARCH_LEAD_TICKS));
+    }
+
+    private void advancePendingSpawns(MinecraftServer server, long now) {
+        // Earliest searches are first in line for the shared snapshot budget
+        int budget = SEARCH_BUDGET_PER_TICK;
+        for (PendingSpawn pending : PENDING_SPAWNS.values()) {
+            if (budget <= 0) {
+                break;
+            }
+            if (pending.search.isRunning()) {
+                budget -= pending.search.advance(Math.min(budget, SEARCH_BUDGET_PER_SEARCH));
+            }
+        }
+
+        Iterator<Map.Entry<UUID, PendingSpawn>> iterator = PENDING_SPAWNS.entrySet().iterator();
+        List<Map.Entry<UUID, PendingSpawn>> due = new ArrayList<>();
+        while (iterator.hasNext()) {
+            Map.Entry<UUID, PendingSpawn> entry = iterator.next();
+            if (entry.getValue().spawnTick <= now && !entry.getValue().search.isRunning()) {
+                iterator.remove();
+                due.add(entry);
+            }
+        }
+
+        for (Map.Entry<UUID, PendingSpawn> entry : due) {
+            completePendingSpawn(server, entry.getKey(), entry.getValue(), now);
+        }
+    }
+
+    private void completePendingSpawn(MinecraftServer server, UUID playerUUID, PendingSpawn pending, long now) {
+        ServerPlayer player = server.getPlayerList().getPlayer(playerUUID);
+        if (player == null || PlayerShinyData.isShinyDisabled(playerUUID)) {
+            return;
+        }
+
+        // A shiny may have been spawned for this player while searching; wait for it like any other due timer
+        if (ShinySettings.get().oneShinyPerPlayer() && hasActiveShiny(playerUUID)) {
+            PARKED.put(playerUUID, 0L);
+            return;
+        }
+
+        // The world may have changed since the position was found; search once more if it no longer fits
+        if (pending.search.state() == SpawnSearch.State.FOUND && !pending.search.revalidate()) {
+            if (!pending.retried) {
+                pending.search = createSearch(player, player.serverLevel(), null);
+                pending.retried = true;
+                PENDING_SPAWNS.put(playerUUID, pending);
                 return;
             }
+
+            EGShiny.LOGGER.warn("Shiny spawn position near player {} stopped being valid before the spawn",
+                    player.getName().getString());
+        } else {
+            // Natural spawns use a random eligible shiny profile type
+            spawnFromSearch(pending.search);
         }
 
-        // Initialize or update spawn timer
-        int currentTimer = EGShiny.PLAYER_SPAWN_TIMERS.getOrDefault(playerUUID, -1);
-        if (currentTimer == -1) {
-            // Initialize with random time
-            int spawnTimeMinutes = getNextSpawnTimeMinutes();
-            EGShiny.PLAYER_SPAWN_TIMERS.put(playerUUID, minutesToTicks(spawnTimeMinutes));
-            EGShiny.LOGGER.debug("Set spawn timer for player {} to {} minutes", player.getName().getString(), spawnTimeMinutes);
+        // Reset timer for next spawn. With one shiny per player the countdown only starts once it is gone.
+        SpawnTimerData timerData = SpawnTimerData.get(server);
+        long nextDelay = minutesToTicks(getNextSpawnTimeMinutes());
+        if (ShinySettings.get().oneShinyPerPlayer()) {
+            setDeadline(timerData, playerUUID, now, nextDelay);
         } else {
-            // Decrement timer by 1 second (20 ticks)
-            currentTimer -= 20;
-            EGShiny.PLAYER_SPAWN_TIMERS.put(playerUUID, currentTimer);
+            setDeadline(timerData, playerUUID, now + nextDelay, 0L);
+        }
+    }
 
-            // Check if it's time to spawn
-            if (currentTimer <= 0) {
-                // Natural spawns use a random eligible shiny profile type
-                spawnShinyMob(player, level);
+    private static void setDeadline(SpawnTimerData timerData, UUID playerUUID, long deadline, long pendingDelay) {
+        timerData.setTimer(playerUUID, SpawnTimerData.SpawnTimer.running(deadline, pendingDelay));
+        // Spawn entries come due early enough to search for a position before the deadline
+        SCHEDULER.schedule(playerUUID, pendingDelay > 0 ? deadline : deadline - SEARCH_LEAD_TICKS, pendingDelay);
+    }
 
-                // Reset timer for next spawn
-                EGShiny.PLAYER_SPAWN_TIMERS.put(playerUUID, minutesToTicks(getNextSpawnTimeMinutes()));
-            }
+    /**
+     * Starts the player's spawn timer from its saved deadline, rolling a fresh spawn time if they have none.
+     */
+    public static void startTimer(ServerPlayer player) {
+        UUID playerUUID = player.getUUID();
+        if (PlayerShinyData.isShinyDisabled(playerUUID) || isTimerRunning(playerUUID)) {
+            return;
+        }
+
+        MinecraftServer server = player.getServer();
+        SpawnTimerData timerData = SpawnTimerData.get(server);
+        long now = getGameTime(server);
+
+        var savedTimer = timerData.getTimer(playerUUID);
+        if (savedTimer.isPresent()) {
+            SpawnTimerData.SpawnTimer timer = savedTimer.get();
+            setDeadline(timerData, playerUUID, timer.deadline(now), timer.pendingDelay());
+            return;
+        }
+
+        int spawnTimeMinutes = getNextSpawnTimeMinutes();
+        setDeadline(timerData, playerUUID, now + minutesToTicks(spawnTimeMinutes), 0L);
+        EGShiny.LOGGER.debug("Set spawn timer for player {} to {} minutes", player.getName().getString(), spawnTimeMinutes);
+    }
+
+    /**
+     * Holds the player's remaining spawn time, e.g. while they are logged out.
+     */
+    public static boolean pauseTimer(ServerPlayer player) {
+        UUID playerUUID = player.getUUID();
+        if (!isTimerRunning(playerUUID)) {
+            return false;
+        }
+
+        SCHEDULER.cancel(playerUUID);
+        cancelSearch(playerUUID);
+        PARKED.remove(playerUUID);
+        MinecraftServer server = player.getServer();
+        SpawnTimerData timerData = SpawnTimerData.get(server);
+        long now = getGameTime(server);
+        timerData.getTimer(playerUUID)
+                .filter(timer -> !timer.paused())
+                .ifPresent(timer -> timerData.setTimer(playerUUID, SpawnTimerData.SpawnTimer.paused(
+                        Math.max(0L, timer.time() - now),
+                        timer.pendingDelay()
+                )));
+        return true;
+    }
+
+    /**
+     * Holds the remaining spawn time of every online player, so their timers survive the server stopping.
+     */
+    public static void pauseAllTimers(MinecraftServer server) {
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+            pauseTimer(player);
+        }
+    }
+
+    /**
+     * Discards the player's spawn timer. The next {@link #startTimer} rolls a fresh spawn time.
+     */
+    public static void resetTimer(MinecraftServer server, UUID playerUUID) {
+        SCHEDULER.cancel(playerUUID);
+        cancelSearch(playerUUID);
+        PARKED.remove(playerUUID);
+        SpawnTimerData.get(server).clear(playerUUID);
+    }
+
+    /**
+     * Discards every spawn timer and rolls fresh ones for the players who are online.
+     */
+    public static void resetAllTimers(MinecraftServer server) {
+        SCHEDULER.clear();
+        for (PendingSpawn pending : PENDING_SPAWNS.values()) {
+            pending.search.release();
+        }
+        PENDING_SPAWNS.clear();
+        PARKED.clear();
+        SpawnTimerData.get(server).clearAll();
+        for (ServerPlayer player : server.getPlayerList().getPlayers()) {
+            startTimer(player);
         }
     }
 
+    /**
+     * Drops the in-memory schedule and spawn spot cache. Saved deadlines are kept and picked up again when players
+     * log in.
+     */
+    public static void clearSchedule() {
+        SCHEDULER.clear();
+        PENDING_SPAWNS.clear();
+        PARKED.clear();
+        SpawnSpotIndex.clear();
+    }
+
+    private static void cancelSearch(UUID playerUUID) {
+        PendingSpawn pending = PENDING_SPAWNS.remove(playerUUID);
+        if (pending != null) {
+            pending.search.release();
+        }
+    }
+
+    private static boolean isTimerRunning(UUID playerUUID) {
+        return SCHEDULER.isScheduled(playerUUID) || PENDING_SPAWNS.containsKey(playerUUID) || PARKED.containsKey(playerUUID);
+    }
+
+    private static long getGameTime(MinecraftServer server) {
+        return server.overworld().getGameTime();
+    }
+
     /**
      * Default shiny spawn used by the timer. Uses the profile registry for random selection.
      */
@@ -102,18 +345,47 @@ public class ShinySpawnManager {
      * If forcedType is null, a random eligible profile-based type is used.
      */
     public static boolean spawnShinyMob(ServerPlayer player, ServerLevel level, @Nullable EntityType<?> forcedType) {
-        int spawnDistance = ShinyConfig.SPAWN_DISTANCE.get();
+        // Commands need an answer right away, so the search runs to completion in this tick
+        SpawnSearch search = createSearch(player, level, forcedType);
+        search.runToCompletion();
+        return spawnFromSearch(search);
+    }
 
+    private static SpawnSearch createSearch(ServerPlayer player, ServerLevel level, @Nullable EntityType<?> forcedType) {
         // Determine whether hard-mode shinies are enabled for this player
         boolean hardMode = PlayerShinyData.isHardShinyEnabled(player.getUUID());
+        ShinySettings settings = ShinySettings.get();
+        return new SpawnSearch(player, level, settings.spawnDistance(), hardMode, forcedType,
+                settings.loadedChunksOnly(), RANDOM);
+    }
 
-        SpawnChoice spawnChoice = chooseSpawn(player, level, spawnDistance, hardMode, forcedType);
-        if (spawnChoice == null) {
+    static void recordSampledColumns(int sampled, int skipped) {
+        sampledColumns += sampled;
+        skippedColumns += skipped;
+        if (skipped > 0) {
+            EGShiny.LOGGER.debug("Shiny spawn search skipped {} of {} columns in chunks that were not loaded", skipped, sampled);
+        }
+    }
+
+    public static long getSampledColumns() {
+        return sampledColumns;
+    }
+
+    public static long getSkippedColumns() {
+        return skippedColumns;
+    }
+
+    private static boolean spawnFromSearch(SpawnSearch search) {
+        ServerPlayer player = search.player();
+        ServerLevel level = search.level();
+        boolean hardMode = search.hardMode();
+
+        if (search.state() != SpawnSearch.State.FOUND) {
             EGShiny.LOGGER.warn("Could not find an eligible shiny spawn near player {}", player.getName().getString());
             return false;
         }
-        BlockPos spawnPos = spawnChoice.pos();
-        EntityType<?> selectedType = spawnChoice.entityType();
+        BlockPos spawnPos = search.foundPos();
+        EntityType<?> selectedType = search.foundType();
 
         // Create the entity instance
         net.minecraft.world.entity.Entity rawEntity = selectedType.create(level);
@@ -158,11 +430,11 @@ public class ShinySpawnManager {
         }
 
         // Track the shiny mob for this player
-        EGShiny.PLAYER_SHINY_MOBS.put(player.getUUID(), living);
-        ActiveShinyData.get(player.getServer()).track(player.getUUID(), living.getUUID());
+        ShinyOwnerTracker.track(player.getUUID(), living);
+        ActiveShinyData.get(player.getServer()).track(player.getUUID(), living);
 
         // Send notification to player
-        if (ShinyConfig.SHOW_SPAWN_MESSAGE.get()) {
+        if (ShinySettings.get().showSpawnMessage()) {
             notifySpawn(player, spawnPos);
         }
 
@@ -175,76 +447,49 @@ public class ShinySpawnManager {
         return true;
     }
 
-    @Nullable
-    private static SpawnChoice chooseSpawn(ServerPlayer player, ServerLevel level, int spawnDistance, boolean hardMode,
-                                           @Nullable EntityType<?> forcedType) {
-        ShinyProfile forcedProfile = null;
-        if (forcedType != null) {
-            forcedProfile = ShinyProfileRegistry.getProfileFor(forcedType);
-            if (forcedProfile == null || forcedProfile.hardShiny() && !hardMode) {
-                return null;
-            }
-        }
-
-        for (int attempt = 0; attempt < 10; attempt++) {
-            BlockPos spawnPos = findSpawnPosition(player, level, spawnDistance);
-            if (spawnPos == null) {
-                continue;
-            }
-
-            if (forcedType != null) {
-                if (forcedProfile.canSpawnAt(level, spawnPos)) {
-                    return new SpawnChoice(spawnPos, forcedType);
-                }
-                continue;
-            }
-
-            EntityType<?> selectedType = ShinyProfileRegistry.getRandomShinyEntityType(hardMode, RANDOM, level, spawnPos);
-            if (selectedType != null) {
-                return new SpawnChoice(spawnPos, selectedType);
-            }
-        }
-
-        return null;
+    private static boolean hasActiveShiny(UUID playerUUID) {
+        return ShinyOwnerTracker.getPresence(playerUUID) != ShinyPresence.NONE;
     }
 
-    private record SpawnChoice(BlockPos pos, EntityType<?> entityType) {
+    /**
+     * Called when a player's active shiny is gone for good (killed, discarded or cleared), to release a timer that
+     * was held back by it.
+     */
+    public static void onShinyGone(MinecraftServer server, UUID playerUUID) {
+        ShinyOwnerTracker.markGone(playerUUID);
+        wakeParked(server, playerUUID);
     }
 
-    private static boolean hasActiveShiny(ServerPlayer player) {
-        UUID playerUUID = player.getUUID();
-        LivingEntity trackedMob = EGShiny.PLAYER_SHINY_MOBS.get(playerUUID) instanceof LivingEntity living ? living : null;
-
-        if (trackedMob != null && trackedMob.isAlive() && ShinyMobHelper.isShiny(trackedMob)) {
-            return true;
+    /**
+     * Marks the saved active shinies as present but unloaded, for players whose shiny has not been loaded yet.
+     */
+    public static void restorePresence(MinecraftServer server) {
+        for (UUID playerUUID : ActiveShinyData.get(server).getPlayerUUIDs()) {
+            ShinyOwnerTracker.restoreUnloaded(playerUUID);
         }
+    }
 
-        EGShiny.PLAYER_SHINY_MOBS.remove(playerUUID);
-        ActiveShinyData activeData = ActiveShinyData.get(player.getServer());
-        if (activeData.getEntityUUID(playerUUID).isEmpty()) {
-            return false;
+    private static void wakeParked(MinecraftServer server, UUID playerUUID) {
+        Long pendingDelay = PARKED.remove(playerUUID);
+        if (pendingDelay != null) {
+            SCHEDULER.schedule(playerUUID, getGameTime(server), pendingDelay);
         }
+    }
 
-        return activeData.findLoadedEntity(player.getServer(), playerUUID)
-                .map(living -> {
-                    if (living.isAlive() && ShinyMobHelper.isShiny(living)) {
-                        EGShiny.PLAYER_SHINY_MOBS.put(playerUUID, living);
-                        return true;
-                    }
-
-                    activeData.clear(playerUUID);
-                    return false;
-                })
-                .orElse(true);
+    /**
+     * Releases every held timer, e.g. after all shinies were cleared.
+     */
+    public static void wakeAllParked(MinecraftServer server) {
+        for (UUID playerUUID : List.copyOf(PARKED.keySet())) {
+            wakeParked(server, playerUUID);
+        }
     }
 
     private static void notifySpawn(ServerPlayer player, BlockPos spawnPos) {
-        String mode = ShinyConfig.SPAWN_NOTIFICATION_MODE.get().toLowerCase(java.util.Locale.ROOT);
-        if (!mode.equals("chat") && !mode.equals("title") && !mode.equals("bossbar") && !mode.equals("both")) {
-            mode = "chat";
-        }
+        ShinySettings settings = ShinySettings.get();
+        ShinySettings.NotificationMode mode = settings.notificationMode();
 
-        if ("title".equalsIgnoreCase(mode) || "both".equalsIgnoreCase(mode)) {
+        if (mode.title()) {
             player.connection.send(new net.minecraft.network.protocol.game.ClientboundSetTitleTextPacket(
                     Component.literal("Shiny Mob").withStyle(ChatFormatting.GOLD, ChatFormatting.BOLD)
             ));
@@ -253,7 +498,7 @@ public class ShinySpawnManager {
             ));
         }
 
-        if ("bossbar".equalsIgnoreCase(mode) || "both".equalsIgnoreCase(mode)) {
+        if (mode.bossbar()) {
             var bossEvent = new net.minecraft.server.level.ServerBossEvent(
                     Component.literal("A Shiny Mob is nearby").withStyle(ChatFormatting.GOLD, ChatFormatting.BOLD),
                     BossEvent.BossBarColor.YELLOW,
@@ -262,18 +507,18 @@ public class ShinySpawnManager {
             bossEvent.setProgress(1.0F);
             bossEvent.addPlayer(player);
             player.getServer().tell(new net.minecraft.server.TickTask(
-                    player.getServer().getTickCount() + ShinyConfig.SPAWN_BOSSBAR_SECONDS.get() * 20,
+                    player.getServer().getTickCount() + settings.spawnBossbarTicks(),
                     () -> bossEvent.removePlayer(player)
             ));
         }
 
-        if ("chat".equalsIgnoreCase(mode) || "both".equalsIgnoreCase(mode)) {
+        if (mode.chat()) {
             player.sendSystemMessage(getSpawnMessage(player, spawnPos));
         }
     }
 
     private static Component getSpawnMessage(@Nullable ServerPlayer player, BlockPos spawnPos) {
-        if (ShinyConfig.SHOW_COORDINATES.get()) {
+        if (ShinySettings.get().showCoordinates()) {
             return Component.literal(String.format(
                             "\u00A76\u00A7l\u2B50 A Shiny Mob has spawned at X: %d, Y: %d, Z: %d! \u2B50",
                             spawnPos.getX(), spawnPos.getY(), spawnPos.getZ()
@@ -322,65 +567,15 @@ public class ShinySpawnManager {
     }
 
     private static int getNextSpawnTimeMinutes() {
-        int minMinutes = ShinyConfig.MIN_SPAWN_TIME.get();
-        int maxMinutes = ShinyConfig.MAX_SPAWN_TIME.get();
+        ShinySettings settings = ShinySettings.get();
+        int minMinutes = settings.minSpawnTime();
+        int maxMinutes = settings.maxSpawnTime();
         int lower = Math.min(minMinutes, maxMinutes);
         int upper = Math.max(minMinutes, maxMinutes);
         return lower + RANDOM.nextInt(upper - lower + 1);
     }
 
-    private static int minutesToTicks(int minutes) {
-        return minutes * 60 * 20;
-    }
-
-    private static BlockPos findSpawnPosition(ServerPlayer player, ServerLevel level, int distance) {
-        Vec3 playerPos = player.position();
-
-        // Try up to 20 attempts to find a valid spawn position
-        for (int attempts = 0; attempts < 20; attempts++) {
-            // Generate random angle
-            double angle = RANDOM.nextDouble() * 2 * Math.PI;
-
-            // Calculate position at the specified distance
-            int x = (int) (playerPos.x + Math.cos(angle) * distance);
-            int z = (int) (playerPos.z + Math.sin(angle) * distance);
-
-            // Find a valid Y position
-            BlockPos.MutableBlockPos mutablePos = new BlockPos.MutableBlockPos(x, (int) playerPos.y, z);
-
-            // Check up and down for a valid spawn spot
-            for (int yOffset = -10; yOffset <= 10; yOffset++) {
-                mutablePos.setY((int) playerPos.y + yOffset);
-
-                if (isValidSpawnLocation(level, mutablePos)) {
-                    return mutablePos.immutable();
-                }
-            }
-
-            // Try surface level
-            int surfaceY = level.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, x, z);
-            mutablePos.setY(surfaceY);
-            if (isValidSpawnLocation(level, mutablePos)) {
-                return mutablePos.immutable();
-            }
-        }
-
-        return null;
-    }
-
-    private static boolean isValidSpawnLocation(ServerLevel level, BlockPos pos) {
-        // Check if the position and one above are air/passable
-        if (!level.getBlockState(pos).isAir() || !level.getBlockState(pos.above()).isAir()) {
-            return false;
-        }
-
-        // Check if there's a solid, sturdy block below (modern replacement for isSolid())
-        BlockPos belowPos = pos.below();
-        if (!level.getBlockState(belowPos).isFaceSturdy(level, belowPos, Direction.UP)) {
-            return false;
-        }
-
-        // Check light level (zombies spawn in darkness)
-        return level.getBrightness(LightLayer.BLOCK, pos) <= 7;
+    private static long minutesToTicks(int minutes) {
+        return minutes * 60L * 20L;
     }
 }
@@ -0,0 +1,84 @@
+package com.styenvy.egshiny.spawn;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Deadline queue for per-player shiny spawn timers.
+ *
+ * This is the in-memory index over the online players' deadlines; the deadlines themselves are persisted in
+ * {@link com.styenvy.egshiny.data.SpawnTimerData}. Each scheduled player has exactly one live entry holding an
+ * absolute game-time due tick. Due ticks are aligned to a per-player phase so that players never all come due on
+ * the same tick. Replaced or cancelled entries are left in the heap and skipped lazily when they surface.
+ */
+final class ShinySpawnScheduler {
+    /**
+     * Width of the phase window due ticks are spread over. Blocked players are parked rather than rechecked, so this
+     * only bounds how late an entry may come due.
+     */
+    static final int CHECK_INTERVAL = 20;
+
+    private final PriorityQueue<Entry> queue = new PriorityQueue<>(Comparator.comparingLong(Entry::dueTick));
+    private final Map<UUID, Entry> entries = new HashMap<>();
+
+    /**
+     * @param pendingDelay Ticks to wait once the player is no longer blocked, or 0 if the entry is a spawn.
+     */
+    record Entry(UUID playerUUID, long dueTick, long pendingDelay) {
+    }
+
+    void schedule(UUID playerUUID, long dueTick, long pendingDelay) {
+        Entry entry = new Entry(playerUUID, alignToPhase(playerUUID, dueTick), pendingDelay);
+        entries.put(playerUUID, entry);
+        queue.add(entry);
+
+        // Drop stale heap entries once they clearly outnumber the live ones
+        if (queue.size() > entries.size() * 2 + 64) {
+            queue.clear();
+            queue.addAll(entries.values());
+        }
+    }
+
+    boolean isScheduled(UUID playerUUID) {
+        return entries.containsKey(playerUUID);
+    }
+
+    void cancel(UUID playerUUID) {
+        entries.remove(playerUUID);
+    }
+
+    void clear() {
+        queue.clear();
+        entries.clear();
+    }
+
+    /**
+     * Removes every entry due at or before {@code now} and hands it to {@code action}. The action may reschedule
+     * the player; a rescheduled entry is always due after {@code now}, so it is not visited again this tick.
+     */
+    void pollDue(long now, Consumer<Entry> action) {
+        Entry head;
+        while ((head = queue.peek()) != null && head.dueTick() <= now) {
+            queue.poll();
+            if (entries.get(head.playerUUID()) != head) {
+                continue;
+            }
+
+            entries.remove(head.playerUUID());
+            action.accept(head);
+        }
+    }
+
+    /**
+     * Rounds a tick up to the next tick in the player's phase, spreading players evenly over
+     * {@link #CHECK_INTERVAL} ticks.
+     */
+    static long alignToPhase(UUID playerUUID, long tick) {
+        int phase = Math.floorMod(playerUUID.hashCode(), CHECK_INTERVAL);
+        return tick + Math.floorMod(phase - tick, CHECK_INTERVAL);
+    }
+}
@@ -0,0 +1,200 @@
+package com.styenvy.egshiny.spawn;
+
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.shorts.ShortArrayList;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.BlockGetter;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.Blocks;
+import net.minecraft.world.level.block.entity.BlockEntity;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.DataLayer;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.level.material.FluidState;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Copy of the chunk sections and block light around a spawn search, so the search can be scored off the server
+ * thread.
+ *
+ * Sections and world-surface heightmaps are copied on the server thread; once the snapshot is handed to a worker it
+ * is never written again. Anything that was not copied reads as air with no light, so it never counts as a floor.
+ */
+final class SpawnAreaSnapshot implements BlockGetter {
+    private static final BlockState AIR = Blocks.AIR.defaultBlockState();
+
+    private final int minBuildHeight;
+    private final int height;
+    private final Long2ObjectMap<SectionSnapshot> sections = new Long2ObjectOpenHashMap<>();
+    // First free block above the highest non-air block; nothing above it can be a floor
+    private final Long2ObjectMap<int[]> worldSurfaces = new Long2ObjectOpenHashMap<>();
+
+    private record SectionSnapshot(PalettedContainer<BlockState> states, @Nullable DataLayer blockLight) {
+    }
+
+    SpawnAreaSnapshot(ServerLevel level) {
+        this.minBuildHeight = level.getMinBuildHeight();
+        this.height = level.getHeight();
+    }
+
+    /**
+     * Copies the chosen sections of a chunk along with its world-surface heightmap, which bounds the column scans.
+     *
+     * @param sectionYs Section Y coordinates to copy, offset by the level's minimum section.
+     * @return The number of sections copied.
+     */
+    int copyChunk(ServerLevel level, LevelChunk chunk, BitSet sectionYs) {
+        ChunkPos chunkPos = chunk.getPos();
+        int[] worldSurface = new int[256];
+        for (int localX = 0; localX < 16; localX++) {
+            for (int localZ = 0; localZ < 16; localZ++) {
+                // Same value Level#getHeight returns: the first free block above the surface
+                worldSurface[localZ << 4 | localX] = chunk.getHeight(Heightmap.Types.WORLD_SURFACE, localX, localZ) + 1;
+            }
+        }
+        worldSurfaces.put(chunkPos.toLong(), worldSurface);
+
+        int copied = 0;
+        LevelChunkSection[] chunkSections = chunk.getSections();
+        int minSection = level.getMinSection();
+        for (int index = sectionYs.nextSetBit(0); index >= 0; index = sectionYs.nextSetBit(index + 1)) {
+            if (index >= chunkSections.length) {
+                break;
+            }
+
+            SectionPos sectionPos = SectionPos.of(chunkPos, minSection + index);
+            DataLayer light = level.getLightEngine().getLayerListener(LightLayer.BLOCK).getDataLayerData(sectionPos);
+            sections.put(sectionPos.asLong(), new SectionSnapshot(
+                    chunkSections[index].getStates().copy(),
+                    light == null ? null : light.copy()
+            ));
+            copied++;
+        }
+
+        return copied;
+    }
+
+    /**
+     * Finds every valid spawn spot whose feet are in the given section. The sections above and below should be in
+     * the snapshot too, for floors and heads across the section border.
+     *
+     * The section's palette is checked first: without any air there are no spots, and if it is all air only its
+     * bottom layer can hold feet (on a floor in the section below). Each column is scanned no higher than the world
+     * surface heightmap allows.
+     *
+     * @return Packed local coordinates in ascending order, see {@link SpawnSpotIndex#packSpot}.
+     */
+    short[] findSpawnSpots(long sectionKey) {
+        SectionSnapshot section = sections.get(sectionKey);
+        // Feet need air, so a section without any air has no spots
+        if (section == null || !section.states().maybeHas(BlockState::isAir)) {
+            return new short[0];
+        }
+
+        boolean onlyAir = !section.states().maybeHas(state -> !state.isAir());
+        int originX = SectionPos.sectionToBlockCoord(SectionPos.x(sectionKey));
+        int originY = SectionPos.sectionToBlockCoord(SectionPos.y(sectionKey));
+        int originZ = SectionPos.sectionToBlockCoord(SectionPos.z(sectionKey));
+        int sectionTop = onlyAir ? originY : originY + 15;
+
+        // Spots are collected per column; they are sorted into y, z, x order afterwards
+        ShortArrayList spots = new ShortArrayList();
+        IntArrayList floors = new IntArrayList();
+        for (int z = 0; z < 16; z++) {
+            for (int x = 0; x < 16; x++) {
+                int maxY = Math.min(sectionTop, getWorldSurfaceY(originX + x, originZ + z));
+                floors.clear();
+                scanColumn(originX + x, originZ + z, originY, maxY, floors);
+                for (int i = 0; i < floors.size(); i++) {
+                    spots.add(SpawnSpotIndex.packSpot(x, floors.getInt(i), z));
+                }
+            }
+        }
+
+        short[] result = spots.toShortArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Collects every valid spawn Y from {@code minY} to {@code maxY} in one upward pass, reading each block once.
+     * Same rules as the live spawn check: two air blocks over a sturdy floor, in block light of 7 or less.
+     */
+    void scanColumn(int x, int z, int minY, int maxY, IntList spawnYs) {
+        if (maxY < minY) {
+            return;
+        }
+
+        BlockPos.MutableBlockPos cursor = new BlockPos.MutableBlockPos(x, minY - 1, z);
+        BlockState below = getBlockState(cursor);
+        BlockState feet = getBlockState(cursor.setY(minY));
+        for (int y = minY; y <= maxY; y++) {
+            BlockState head = getBlockState(cursor.setY(y + 1));
+            if (feet.isAir() && head.isAir()
+                    && below.isFaceSturdy(this, cursor.setY(y - 1), Direction.UP)
+                    && getBlockLight(cursor.setY(y)) <= 7) {
+                spawnYs.add(y);
+            }
+            below = feet;
+            feet = head;
+        }
+    }
+
+    private int getWorldSurfaceY(int x, int z) {
+        int[] surface = worldSurfaces.get(ChunkPos.asLong(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z)));
+        return surface == null ? minBuildHeight : surface[(z & 15) << 4 | (x & 15)];
+    }
+
+    private int getBlockLight(BlockPos pos) {
+        SectionSnapshot section = sections.get(SectionPos.asLong(pos));
+        if (section == null || section.blockLight() == null) {
+            return 0;
+        }
+
+        return section.blockLight().get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+
+    @Override
+    public BlockState getBlockState(BlockPos pos) {
+        SectionSnapshot section = sections.get(SectionPos.asLong(pos));
+        if (section == null) {
+            return AIR;
+        }
+
+        return section.states().get(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+    }
+
+    @Override
+    public FluidState getFluidState(BlockPos pos) {
+        return getBlockState(pos).getFluidState();
+    }
+
+    @Nullable
+    @Override
+    public BlockEntity getBlockEntity(BlockPos pos) {
+        return null;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getMinBuildHeight() {
+        return minBuildHeight;
+    }
+}
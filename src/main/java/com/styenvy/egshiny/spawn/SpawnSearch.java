@@ -0,0 +1,519 @@
+package com.styenvy.egshiny.spawn;
+
+import com.styenvy.egshiny.EGShiny;
+import com.styenvy.egshiny.util.ShinyProfile;
+import com.styenvy.egshiny.util.ShinyProfileRegistry;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntList;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMaps;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import net.minecraft.Util;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Direction;
+import net.minecraft.core.SectionPos;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.LightLayer;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.LevelChunk;
+import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.levelgen.Heightmap;
+import net.minecraft.world.phys.Vec3;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.BitSet;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Resumable search for a shiny spawn position and entity type around a player.
+ *
+ * Uses the same sampling as a one-shot search (10 attempts of 20 random columns at the spawn distance, each column
+ * checked from y-10 to y+10 and then at the surface), split into three steps:
+ * <ol>
+ *     <li>the chunk sections those columns touch are looked up in the {@link SpawnSpotIndex}, and the ones it
+ *     does not know are copied into a {@link SpawnAreaSnapshot} on the server thread, a bounded number per
+ *     {@link #advance} call;</li>
+ *     <li>on a background worker, the spawn spots of the copied sections are computed (skipping sections by their
+ *     palettes and bounding columns by the heightmaps) and the columns are checked against the known spots;</li>
+ *     <li>back on the server thread, an entity type is picked for the first usable spot of each attempt.</li>
+ * </ol>
+ * The winning position must still pass {@link #revalidate} against the live world before it is used.
+ */
+final class SpawnSearch {
+    private static final int ATTEMPTS = 10;
+    private static final int COLUMNS_PER_ATTEMPT = 20;
+    private static final int COLUMNS = ATTEMPTS * COLUMNS_PER_ATTEMPT;
+    private static final int VERTICAL_RANGE = 10;
+    private static final int NOT_FOUND = Integer.MIN_VALUE;
+
+    private record ScanResult(int[] spawnYs, Long2ObjectMap<short[]> computedSpots) {
+    }
+
+    enum State {
+        SNAPSHOT,
+        SCANNING,
+        FOUND,
+        EXHAUSTED
+    }
+
+    private final ServerPlayer player;
+    private final ServerLevel level;
+    private final boolean hardMode;
+    @Nullable
+    private final EntityType<?> forcedType;
+    @Nullable
+    private final ShinyProfile forcedProfile;
+    private final Random random;
+
+    private final int[] columnXs = new int[COLUMNS];
+    private final int[] columnZs = new int[COLUMNS];
+    // Spawn surface of each sampled column, read from its chunk's heightmap on the server thread
+    private final int[] surfaceYs = new int[COLUMNS];
+    private final Long2ObjectMap<IntList> columnsByChunk = new Long2ObjectLinkedOpenHashMap<>();
+    private final SpawnAreaSnapshot snapshot;
+    // Spots of sections the index already knew, and reservations for the ones this search computes
+    private final Long2ObjectMap<short[]> knownSpots = new Long2ObjectOpenHashMap<>();
+    private final Long2ObjectMap<SpawnSpotIndex.Entry> reservations = new Long2ObjectLinkedOpenHashMap<>();
+    // Sections another search is computing; they are computed here too, but only that search publishes them
+    private final LongSet borrowedSections = new LongOpenHashSet();
+    // Columns in chunks that were not available; they are never read
+    private final BitSet skippedColumns = new BitSet(COLUMNS);
+    private final boolean loadedChunksOnly;
+    private int baseY;
+    private long[] pendingChunks = new long[0];
+    private int nextChunk;
+
+    private State state = State.SNAPSHOT;
+    @Nullable
+    private CompletableFuture<ScanResult> scan;
+    // Spots this search computed itself, kept so a found spot can be swapped for another in the same section
+    private Long2ObjectMap<short[]> scannedSpots = Long2ObjectMaps.emptyMap();
+    @Nullable
+    private BlockPos foundPos;
+    @Nullable
+    private EntityType<?> foundType;
+
+    SpawnSearch(ServerPlayer player, ServerLevel level, int distance, boolean hardMode,
+                @Nullable EntityType<?> forcedType, boolean loadedChunksOnly, Random random) {
+        this.player = player;
+        this.level = level;
+        this.hardMode = hardMode;
+        this.loadedChunksOnly = loadedChunksOnly;
+        this.forcedType = forcedType;
+        this.random = random;
+        this.snapshot = new SpawnAreaSnapshot(level);
+
+        if (forcedType != null) {
+            forcedProfile = ShinyProfileRegistry.getProfileFor(forcedType);
+            if (forcedProfile == null || forcedProfile.hardShiny() && !hardMode) {
+                state = State.EXHAUSTED;
+                return;
+            }
+        } else {
+            forcedProfile = null;
+        }
+
+        planColumns(distance);
+    }
+
+    private void planColumns(int distance) {
+        Vec3 playerPos = player.position();
+        baseY = (int) playerPos.y;
+
+        for (int column = 0; column < COLUMNS; column++) {
+            double angle = random.nextDouble() * 2 * Math.PI;
+            int x = (int) (playerPos.x + Math.cos(angle) * distance);
+            int z = (int) (playerPos.z + Math.sin(angle) * distance);
+            columnXs[column] = x;
+            columnZs[column] = z;
+
+            long chunkKey = ChunkPos.asLong(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(z));
+            columnsByChunk.computeIfAbsent(chunkKey, key -> new IntArrayList()).add(column);
+        }
+
+        pendingChunks = columnsByChunk.keySet().toLongArray();
+    }
+
+    /**
+     * Continues the search, copying up to roughly {@code budget} chunk sections on this thread.
+     *
+     * @return The number of sections actually copied, with a chunk's heightmap copy counting as one more, or 1 for
+     * a step that copied nothing.
+     */
+    int advance(int budget) {
+        int used = 0;
+
+        if (state == State.SNAPSHOT) {
+            while (nextChunk < pendingChunks.length && used < budget) {
+                used += Math.max(1, copyChunk(pendingChunks[nextChunk++]));
+            }
+
+            if (nextChunk >= pendingChunks.length) {
+                state = State.SCANNING;
+                long[] sections = sectionsToScan();
+                scan = CompletableFuture.supplyAsync(() -> scanColumns(sections), Util.backgroundExecutor());
+            }
+            return used;
+        }
+
+        if (state == State.SCANNING && scan.isDone()) {
+            try {
+                completeScan(scan.join());
+            } catch (CompletionException exception) {
+                EGShiny.LOGGER.error("Shiny spawn scan failed near player {}", player.getName().getString(), exception);
+                release();
+                state = State.EXHAUSTED;
+            }
+        }
+
+        return 1;
+    }
+
+    /**
+     * Runs every remaining step on the calling thread.
+     */
+    void runToCompletion() {
+        if (state == State.SNAPSHOT) {
+            while (nextChunk < pendingChunks.length) {
+                copyChunk(pendingChunks[nextChunk++]);
+            }
+            state = State.SCANNING;
+            scan = CompletableFuture.completedFuture(scanColumns(sectionsToScan()));
+        }
+
+        if (state == State.SCANNING) {
+            completeScan(scan.join());
+        }
+    }
+
+    private int copyChunk(long chunkKey) {
+        LevelChunk chunk = getChunk(chunkKey);
+        if (chunk == null) {
+            for (int column : columnsByChunk.get(chunkKey)) {
+                skippedColumns.set(column);
+            }
+            return 0;
+        }
+
+        // Sections holding the feet positions of the vertical band around the player and of each sampled surface
+        BitSet sectionYs = new BitSet();
+        addSections(sectionYs, baseY - VERTICAL_RANGE, baseY + VERTICAL_RANGE);
+        for (int column : columnsByChunk.get(chunkKey)) {
+            int surfaceY = chunk.getHeight(Heightmap.Types.MOTION_BLOCKING_NO_LEAVES, columnXs[column] & 15, columnZs[column] & 15) + 1;
+            surfaceYs[column] = surfaceY;
+            addSections(sectionYs, surfaceY, surfaceY);
+        }
+
+        // Sections the index knows are not copied at all; the others are copied with their neighbours above and
+        // below, which hold the floors and heads of spots at the section border
+        BitSet copyYs = new BitSet();
+        for (int index = sectionYs.nextSetBit(0); index >= 0; index = sectionYs.nextSetBit(index + 1)) {
+            long sectionKey = SectionPos.asLong(ChunkPos.getX(chunkKey), level.getMinSection() + index, ChunkPos.getZ(chunkKey));
+            short[] spots = SpawnSpotIndex.getSpots(level, sectionKey);
+            if (spots != null) {
+                knownSpots.put(sectionKey, spots);
+                continue;
+            }
+
+            // A section without any air has no spots; its palette says so without copying anything
+            SpawnSpotIndex.Entry reservation = SpawnSpotIndex.reserve(level, sectionKey);
+            LevelChunkSection section = chunk.getSections()[index];
+            if (!section.getStates().maybeHas(BlockState::isAir)) {
+                short[] none = new short[0];
+                if (reservation != null) {
+                    SpawnSpotIndex.complete(level, sectionKey, reservation, none);
+                }
+                knownSpots.put(sectionKey, none);
+                continue;
+            }
+
+            if (reservation != null) {
+                reservations.put(sectionKey, reservation);
+            } else {
+                borrowedSections.add(sectionKey);
+            }
+            copyYs.set(Math.max(0, index - 1), Math.min(level.getSectionsCount(), index + 2));
+        }
+
+        // Every section is known: nothing in this chunk needs a scan, so neither its heightmap nor any block is copied
+        if (copyYs.isEmpty()) {
+            return 0;
+        }
+
+        // The heightmap copy costs about as much as a section
+        return snapshot.copyChunk(level, chunk, copyYs) + 1;
+    }
+
+    /**
+     * @return The chunk, or null if only loaded chunks may be used and this one is not loaded and entity-ticking.
+     */
+    @Nullable
+    private LevelChunk getChunk(long chunkKey) {
+        int chunkX = ChunkPos.getX(chunkKey);
+        int chunkZ = ChunkPos.getZ(chunkKey);
+        if (!loadedChunksOnly) {
+            return level.getChunk(chunkX, chunkZ);
+        }
+
+        // getChunkNow never loads or generates; the ticking check keeps searches out of border chunks
+        if (!level.isPositionEntityTicking(new ChunkPos(chunkX, chunkZ).getWorldPosition())) {
+            return null;
+        }
+        return level.getChunkSource().getChunkNow(chunkX, chunkZ);
+    }
+
+    private void addSections(BitSet sectionYs, int minY, int maxY) {
+        int lowest = Math.max(0, SectionPos.blockToSectionCoord(minY) - level.getMinSection());
+        int highest = Math.min(level.getSectionsCount() - 1, SectionPos.blockToSectionCoord(maxY) - level.getMinSection());
+        if (lowest <= highest) {
+            sectionYs.set(lowest, highest + 1);
+        }
+    }
+
+    /**
+     * Copies the keys of the sections the worker has to compute. The worker only reads the copy, since
+     * {@link #release} may clear the reservations on the server thread while a scan is running.
+     */
+    private long[] sectionsToScan() {
+        LongArrayList sections = new LongArrayList(reservations.size() + borrowedSections.size());
+        sections.addAll(reservations.keySet());
+        sections.addAll(borrowedSections);
+        return sections.toLongArray();
+    }
+
+    /**
+     * Worker-side step: computes the spots of the copied sections, then finds the first valid floor of every
+     * column.
+     */
+    private ScanResult scanColumns(long[] sections) {
+        Long2ObjectMap<short[]> computedSpots = new Long2ObjectOpenHashMap<>();
+        for (long sectionKey : sections) {
+            computedSpots.put(sectionKey, snapshot.findSpawnSpots(sectionKey));
+        }
+
+        int[] spawnYs = new int[COLUMNS];
+        for (int column = 0; column < COLUMNS; column++) {
+            int x = columnXs[column];
+            int z = columnZs[column];
+            spawnYs[column] = NOT_FOUND;
+            if (skippedColumns.get(column)) {
+                continue;
+            }
+
+            for (int y = baseY - VERTICAL_RANGE; y <= baseY + VERTICAL_RANGE; y++) {
+                if (hasSpot(computedSpots, x, y, z)) {
+                    spawnYs[column] = y;
+                    break;
+                }
+            }
+
+            if (spawnYs[column] == NOT_FOUND) {
+                int surfaceY = surfaceYs[column];
+                if (hasSpot(computedSpots, x, surfaceY, z)) {
+                    spawnYs[column] = surfaceY;
+                }
+            }
+        }
+
+        return new ScanResult(spawnYs, computedSpots);
+    }
+
+    private boolean hasSpot(Long2ObjectMap<short[]> computedSpots, int x, int y, int z) {
+        long sectionKey = SectionPos.asLong(SectionPos.blockToSectionCoord(x), SectionPos.blockToSectionCoord(y),
+                SectionPos.blockToSectionCoord(z));
+        short[] spots = knownSpots.get(sectionKey);
+        if (spots == null) {
+            spots = computedSpots.get(sectionKey);
+        }
+        return spots != null && SpawnSpotIndex.containsSpot(spots, x, y, z);
+    }
+
+    private void completeScan(ScanResult result) {
+        ShinySpawnManager.recordSampledColumns(COLUMNS, skippedColumns.cardinality());
+
+        // Back on the server thread: publish the new sections to the index unless they changed meanwhile
+        for (Long2ObjectMap.Entry<SpawnSpotIndex.Entry> reservation : reservations.long2ObjectEntrySet()) {
+            short[] spots = result.computedSpots().get(reservation.getLongKey());
+            if (spots != null) {
+                SpawnSpotIndex.complete(level, reservation.getLongKey(), reservation.getValue(), spots);
+            }
+        }
+        reservations.clear();
+        scannedSpots = result.computedSpots();
+
+        selectEntityType(result.spawnYs());
+    }
+
+    private void selectEntityType(int[] spawnYs) {
+        for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+            for (int column = attempt * COLUMNS_PER_ATTEMPT; column < (attempt + 1) * COLUMNS_PER_ATTEMPT; column++) {
+                if (spawnYs[column] == NOT_FOUND) {
+                    continue;
+                }
+
+                BlockPos pos = new BlockPos(columnXs[column], spawnYs[column], columnZs[column]);
+                // Light can change without a block event near the spot (a lamp switched by redstone, for one), so
+                // the live light decides; a section whose cached spots got lit is computed again next time
+                if (level.getBrightness(LightLayer.BLOCK, pos) > 7) {
+                    SpawnSpotIndex.invalidateSection(level, SectionPos.asLong(pos));
+                    continue;
+                }
+
+                EntityType<?> selectedType;
+                if (forcedType != null) {
+                    selectedType = forcedProfile.canSpawnAt(level, pos) ? forcedType : null;
+                } else {
+                    selectedType = ShinyProfileRegistry.getRandomShinyEntityType(hardMode, random, level, pos);
+                }
+
+                if (selectedType != null) {
+                    foundPos = pos;
+                    foundType = selectedType;
+                    state = State.FOUND;
+                    return;
+                }
+
+                // No eligible type at the first spot: this attempt is used up, move on to the next one
+                break;
+            }
+        }
+
+        state = State.EXHAUSTED;
+    }
+
+    /**
+     * Gives back the sections this search reserved but has not published, for a search that will not be finished.
+     */
+    void release() {
+        for (Long2ObjectMap.Entry<SpawnSpotIndex.Entry> reservation : reservations.long2ObjectEntrySet()) {
+            SpawnSpotIndex.release(level, reservation.getLongKey(), reservation.getValue());
+        }
+        reservations.clear();
+    }
+
+    /**
+     * Re-checks a found position against the current world. This is the authoritative check: the snapshot and the
+     * {@link SpawnSpotIndex} can both be out of date, so every rule is evaluated again on live blocks and light.
+     * The chosen entity's full bounding box must also be free of collisions; a spot that is valid but too small for
+     * it is swapped for another spot in the same section.
+     */
+    boolean revalidate() {
+        if (state != State.FOUND || player.serverLevel() != level) {
+            return false;
+        }
+
+        // Don't load the chunk back in just to check it
+        if (loadedChunksOnly && !level.isPositionEntityTicking(foundPos)) {
+            return false;
+        }
+
+        if (!isValidSpawnLocation(foundPos)) {
+            // The index (or the snapshot) was out of date for this section
+            SpawnSpotIndex.invalidateSection(level, SectionPos.asLong(foundPos));
+            return false;
+        }
+
+        ShinyProfile profile = ShinyProfileRegistry.getProfileFor(foundType);
+        if (profile == null || profile.hardShiny() && !hardMode) {
+            return false;
+        }
+
+        // Too small for this mob says nothing about the section's cached spots, so the index is left alone
+        if (fits(profile, foundPos)) {
+            return true;
+        }
+
+        BlockPos replacement = findFittingSpotInSection(profile);
+        if (replacement == null) {
+            return false;
+        }
+        foundPos = replacement;
+        return true;
+    }
+
+    private boolean fits(ShinyProfile profile, BlockPos pos) {
+        return level.noCollision(foundType.getSpawnAABB(pos.getX() + 0.5, pos.getY(), pos.getZ() + 0.5))
+                && profile.canSpawnAt(level, pos);
+    }
+
+    /**
+     * @return Another spot in the found position's section that passes the live checks for the found type, or null.
+     */
+    @Nullable
+    private BlockPos findFittingSpotInSection(ShinyProfile profile) {
+        long sectionKey = SectionPos.asLong(foundPos);
+        short[] spots = knownSpots.get(sectionKey);
+        if (spots == null) {
+            spots = scannedSpots.get(sectionKey);
+        }
+        if (spots == null) {
+            return null;
+        }
+
+        int originX = SectionPos.sectionToBlockCoord(SectionPos.x(sectionKey));
+        int originY = SectionPos.sectionToBlockCoord(SectionPos.y(sectionKey));
+        int originZ = SectionPos.sectionToBlockCoord(SectionPos.z(sectionKey));
+        for (short spot : spots) {
+            BlockPos pos = new BlockPos(originX + (spot & 15), originY + (spot >> 8 & 15), originZ + (spot >> 4 & 15));
+            if (!pos.equals(foundPos) && isValidSpawnLocation(pos) && fits(profile, pos)) {
+                return pos;
+            }
+        }
+        return null;
+    }
+
+    private boolean isValidSpawnLocation(BlockPos pos) {
+        // Check if the position and one above are air/passable
+        if (!level.getBlockState(pos).isAir() || !level.getBlockState(pos.above()).isAir()) {
+            return false;
+        }
+
+        // Check if there's a solid, sturdy block below (modern replacement for isSolid())
+        BlockPos belowPos = pos.below();
+        if (!level.getBlockState(belowPos).isFaceSturdy(level, belowPos, Direction.UP)) {
+            return false;
+        }
+
+        // Check light level (zombies spawn in darkness)
+        return level.getBrightness(LightLayer.BLOCK, pos) <= 7;
+    }
+
+    State state() {
+        return state;
+    }
+
+    boolean isRunning() {
+        return state == State.SNAPSHOT || state == State.SCANNING;
+    }
+
+    ServerPlayer player() {
+        return player;
+    }
+
+    ServerLevel level() {
+        return level;
+    }
+
+    boolean hardMode() {
+        return hardMode;
+    }
+
+    @Nullable
+    BlockPos foundPos() {
+        return foundPos;
+    }
+
+    @Nullable
+    EntityType<?> foundType() {
+        return foundType;
+    }
+}
@@ -0,0 +1,169 @@
+package com.styenvy.egshiny.spawn;
+
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.SectionPos;
+import net.minecraft.resources.ResourceKey;
+import net.minecraft.server.level.ServerLevel;
+import net.minecraft.world.level.ChunkPos;
+import net.minecraft.world.level.Level;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Cache of the valid shiny spawn spots in each chunk section, so repeat searches around the same player only copy
+ * and scan the sections that changed.
+ *
+ * Spots are stored as sorted arrays of packed local coordinates ({@code y << 8 | z << 4 | x}). A section's entry
+ * is dropped when a block in or next to it changes (neighbour updates, and blocks placed or broken by entities), when
+ * its chunk unloads, and when a spot taken from it fails the live check at spawn time. Light changes that fire no
+ * block event, such as a lamp switched by redstone, are caught when a spot is picked: its live block light is
+ * checked, and a lit spot drops its section. Other silent block changes ({@code setBlock} without neighbour updates)
+ * are caught by {@link SpawnSearch#revalidate}, which checks the chosen spot against the live world before anything
+ * spawns there. Only used on the server thread.
+ */
+final class SpawnSpotIndex {
+    private static final Map<ResourceKey<Level>, Long2ObjectMap<Entry[]>> LEVELS = new HashMap<>();
+
+    /**
+     * A section's spots, or a reservation while a search is still computing them.
+     */
+    static final class Entry {
+        @Nullable
+        private short[] spots;
+    }
+
+    private SpawnSpotIndex() {
+    }
+
+    @Nullable
+    static short[] getSpots(ServerLevel level, long sectionKey) {
+        Entry entry = getEntry(level, sectionKey);
+        return entry == null ? null : entry.spots;
+    }
+
+    /**
+     * Claims a section whose spots are about to be computed. The result is only stored if nothing invalidated the
+     * section in the meantime.
+     *
+     * @return The reservation, or null if another search already holds the section; the caller can still compute
+     * the spots for itself, but must not publish them.
+     */
+    @Nullable
+    static Entry reserve(ServerLevel level, long sectionKey) {
+        Entry[] sections = LEVELS.computeIfAbsent(level.dimension(), key -> new Long2ObjectOpenHashMap<>())
+                .computeIfAbsent(chunkKey(sectionKey), key -> new Entry[level.getSectionsCount()]);
+        int index = sectionIndex(level, sectionKey);
+        if (index < 0 || index >= sections.length) {
+            return new Entry();
+        }
+
+        if (sections[index] != null && sections[index].spots == null) {
+            return null;
+        }
+
+        Entry entry = new Entry();
+        sections[index] = entry;
+        return entry;
+    }
+
+    static void complete(ServerLevel level, long sectionKey, Entry reservation, short[] spots) {
+        if (getEntry(level, sectionKey) == reservation) {
+            reservation.spots = spots;
+        }
+    }
+
+    /**
+     * Gives up a reservation without a result, e.g. for a search that was cancelled, so the next search can claim
+     * the section.
+     */
+    static void release(ServerLevel level, long sectionKey, Entry reservation) {
+        if (getEntry(level, sectionKey) == reservation && reservation.spots == null) {
+            invalidateSection(level, sectionKey);
+        }
+    }
+
+    static void invalidateSection(ServerLevel level, long sectionKey) {
+        Entry[] sections = getSections(level, chunkKey(sectionKey));
+        int index = sectionIndex(level, sectionKey);
+        if (sections != null && index >= 0 && index < sections.length) {
+            sections[index] = null;
+        }
+    }
+
+    /**
+     * Drops the sections a block change can affect: the block's own section (feet and head), the ones above and
+     * below (floor and head across the section border), and the horizontal neighbours that its light reaches.
+     */
+    static void invalidateAround(ServerLevel level, BlockPos pos) {
+        Long2ObjectMap<Entry[]> chunks = LEVELS.get(level.dimension());
+        if (chunks == null || chunks.isEmpty()) {
+            return;
+        }
+
+        int sectionX = SectionPos.blockToSectionCoord(pos.getX());
+        int sectionZ = SectionPos.blockToSectionCoord(pos.getZ());
+        int index = SectionPos.blockToSectionCoord(pos.getY()) - level.getMinSection();
+        for (int dx = -1; dx <= 1; dx++) {
+            for (int dz = -1; dz <= 1; dz++) {
+                Entry[] sections = chunks.get(ChunkPos.asLong(sectionX + dx, sectionZ + dz));
+                if (sections == null) {
+                    continue;
+                }
+                for (int dy = -1; dy <= 1; dy++) {
+                    if (index + dy >= 0 && index + dy < sections.length) {
+                        sections[index + dy] = null;
+                    }
+                }
+            }
+        }
+    }
+
+    static void invalidateChunk(ServerLevel level, ChunkPos chunkPos) {
+        Long2ObjectMap<Entry[]> chunks = LEVELS.get(level.dimension());
+        if (chunks != null) {
+            chunks.remove(chunkPos.toLong());
+        }
+    }
+
+    static void invalidateLevel(ServerLevel level) {
+        LEVELS.remove(level.dimension());
+    }
+
+    static void clear() {
+        LEVELS.clear();
+    }
+
+    static short packSpot(int x, int y, int z) {
+        return (short) ((y & 15) << 8 | (z & 15) << 4 | (x & 15));
+    }
+
+    static boolean containsSpot(short[] spots, int x, int y, int z) {
+        return Arrays.binarySearch(spots, packSpot(x, y, z)) >= 0;
+    }
+
+    @Nullable
+    private static Entry getEntry(ServerLevel level, long sectionKey) {
+        Entry[] sections = getSections(level, chunkKey(sectionKey));
+        int index = sectionIndex(level, sectionKey);
+        return sections == null || index < 0 || index >= sections.length ? null : sections[index];
+    }
+
+    @Nullable
+    private static Entry[] getSections(ServerLevel level, long chunkKey) {
+        Long2ObjectMap<Entry[]> chunks = LEVELS.get(level.dimension());
+        return chunks == null ? null : chunks.get(chunkKey);
+    }
+
+    private static long chunkKey(long sectionKey) {
+        return ChunkPos.asLong(SectionPos.x(sectionKey), SectionPos.z(sectionKey));
+    }
+
+    private static int sectionIndex(ServerLevel level, long sectionKey) {
+        return SectionPos.y(sectionKey) - level.getMinSection();
+    }
+}
@@ -0,0 +1,165 @@
+package com.styenvy.egshiny.tracking;
+
+import net.minecraft.world.entity.Entity;
+import org.jetbrains.annotations.Nullable;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Loaded shiny mob of each player, indexed both ways so owner and entity lookups are constant-time, plus the
+ * {@link ShinyPresence} of every player's active shiny.
+ *
+ * A player has at most one tracked mob and a mob at most one owner; every update keeps both maps in step.
+ * Entries are dropped when the mob dies or leaves its level, and restored when it is loaded again. Presence is kept
+ * up to date by the same level join and leave events, so reading it never searches. Server thread only.
+ *
+ * Mobs are held through weak references and the reverse index is keyed by entity UUID, so a mob that is removed
+ * without a leave event is never kept reachable from here; its entry reads as absent and is pruned on next access.
+ */
+public final class ShinyOwnerTracker {
+    private static final Map<UUID, Handle> BY_OWNER = new HashMap<>();
+    // Entity UUID -> owner UUID
+    private static final Map<UUID, UUID> OWNERS = new HashMap<>();
+    // Players without an entry have no active shiny
+    private static final Map<UUID, ShinyPresence> PRESENCE = new HashMap<>();
+
+    private record Handle(UUID entityUUID, WeakReference<Entity> entity) {
+    }
+
+    private ShinyOwnerTracker() {
+    }
+
+    public static void track(UUID ownerUUID, Entity entity) {
+        untrackOwner(ownerUUID);
+        UUID previousOwner = OWNERS.get(entity.getUUID());
+        if (previousOwner != null) {
+            untrackOwner(previousOwner);
+        }
+
+        BY_OWNER.put(ownerUUID, new Handle(entity.getUUID(), new WeakReference<>(entity)));
+        OWNERS.put(entity.getUUID(), ownerUUID);
+        PRESENCE.put(ownerUUID, ShinyPresence.LOADED);
+    }
+
+    public static ShinyPresence getPresence(UUID ownerUUID) {
+        return PRESENCE.getOrDefault(ownerUUID, ShinyPresence.NONE);
+    }
+
+    /**
+     * Records that the player's shiny still exists but is no longer loaded.
+     */
+    public static void markUnloaded(UUID ownerUUID) {
+        PRESENCE.put(ownerUUID, ShinyPresence.UNLOADED);
+    }
+
+    /**
+     * Records a saved shiny found at startup, unless it has already been loaded.
+     */
+    public static void restoreUnloaded(UUID ownerUUID) {
+        PRESENCE.putIfAbsent(ownerUUID, ShinyPresence.UNLOADED);
+    }
+
+    /**
+     * Records that the player no longer has an active shiny, and stops tracking its entity.
+     */
+    public static void markGone(UUID ownerUUID) {
+        untrackOwner(ownerUUID);
+        PRESENCE.remove(ownerUUID);
+    }
+
+    /**
+     * @return The player's tracked mob, or null if there is none or it has been removed from its level.
+     */
+    @Nullable
+    public static Entity getEntity(UUID ownerUUID) {
+        Handle handle = BY_OWNER.get(ownerUUID);
+        if (handle == null) {
+            return null;
+        }
+
+        Entity entity = handle.entity().get();
+        if (entity == null || entity.isRemoved()) {
+            // Removed without a leave event reaching us. Only a removal that saves the mob leaves it in the world;
+            // a collected reference gives no reason, and is treated as gone so the owner is not held back forever
+            Entity.RemovalReason reason = entity == null ? null : entity.getRemovalReason();
+            if (reason != null && reason.shouldSave()) {
+                untrackOwner(ownerUUID);
+                markUnloaded(ownerUUID);
+            } else {
+                markGone(ownerUUID);
+            }
+            return null;
+        }
+        return entity;
+    }
+
+    @Nullable
+    public static UUID getOwner(Entity entity) {
+        UUID ownerUUID = OWNERS.get(entity.getUUID());
+        return ownerUUID != null && isTracked(ownerUUID, entity) ? ownerUUID : null;
+    }
+
+    /**
+     * @return The entity that was tracked for the player, if it is still around.
+     */
+    @Nullable
+    public static Entity untrackOwner(UUID ownerUUID) {
+        Handle handle = BY_OWNER.remove(ownerUUID);
+        if (handle == null) {
+            return null;
+        }
+
+        OWNERS.remove(handle.entityUUID(), ownerUUID);
+        return handle.entity().get();
+    }
+
+    /**
+     * @return The player the entity was tracked for, if any.
+     */
+    @Nullable
+    public static UUID untrackEntity(Entity entity) {
+        UUID ownerUUID = OWNERS.get(entity.getUUID());
+        // Only the exact instance counts: a mob that changed dimension shares its UUID with the old copy
+        if (ownerUUID == null || !isTracked(ownerUUID, entity)) {
+            return null;
+        }
+
+        OWNERS.remove(entity.getUUID());
+        BY_OWNER.remove(ownerUUID);
+        return ownerUUID;
+    }
+
+    public static List<Entity> getTrackedEntities() {
+        List<Entity> entities = new ArrayList<>(BY_OWNER.size());
+        for (Handle handle : BY_OWNER.values()) {
+            Entity entity = handle.entity().get();
+            if (entity != null) {
+                entities.add(entity);
+            }
+        }
+        return entities;
+    }
+
+    /**
+     * Number of players with a tracked (loaded) shiny mob.
+     */
+    public static int size() {
+        return BY_OWNER.size();
+    }
+
+    public static void clear() {
+        BY_OWNER.clear();
+        OWNERS.clear();
+        PRESENCE.clear();
+    }
+
+    private static boolean isTracked(UUID ownerUUID, Entity entity) {
+        Handle handle = BY_OWNER.get(ownerUUID);
+        return handle != null && handle.entity().get() == entity;
+    }
+}
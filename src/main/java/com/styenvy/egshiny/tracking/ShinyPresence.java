@@ -0,0 +1,13 @@
+package com.styenvy.egshiny.tracking;
+
+/**
+ * Whether a player's active shiny exists, and if so whether it is loaded.
+ */
+public enum ShinyPresence {
+    /** The shiny is in a loaded chunk and tracked. */
+    LOADED,
+    /** The shiny exists but its chunk is not loaded. */
+    UNLOADED,
+    /** The player has no active shiny. */
+    NONE
+}
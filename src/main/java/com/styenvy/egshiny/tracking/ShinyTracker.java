@@ -0,0 +1,57 @@
+package com.styenvy.egshiny.tracking;
+
+import net.minecraft.world.entity.Entity;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Set;
+
+/**
+ * Shiny entities that are currently loaded in a server level, so hot event handlers can check for shinies without
+ * reading entity data.
+ *
+ * Entities are added when they join a level and removed when they leave it (death, discard or chunk unload).
+ * Updated on the server thread only; the count can be read from anywhere.
+ */
+public final class ShinyTracker {
+    private static final Set<Entity> LOADED = Collections.newSetFromMap(new IdentityHashMap<>());
+    private static volatile int loadedCount;
+
+    private ShinyTracker() {
+    }
+
+    public static void onLoad(Entity entity) {
+        if (LOADED.add(entity)) {
+            loadedCount = LOADED.size();
+        }
+    }
+
+    public static void onUnload(Entity entity) {
+        if (LOADED.remove(entity)) {
+            loadedCount = LOADED.size();
+        }
+    }
+
+    /**
+     * One volatile read; lets callers skip all other shiny checks while no shiny is loaded.
+     */
+    public static boolean hasLoadedShinies() {
+        return loadedCount > 0;
+    }
+
+    /**
+     * Server thread only.
+     */
+    public static boolean isLoadedShiny(Entity entity) {
+        return LOADED.contains(entity);
+    }
+
+    public static int getLoadedCount() {
+        return loadedCount;
+    }
+
+    public static void clear() {
+        LOADED.clear();
+        loadedCount = 0;
+    }
+}
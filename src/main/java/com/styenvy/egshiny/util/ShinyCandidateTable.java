@@ -0,0 +1,94 @@
+package com.styenvy.egshiny.util;
+
+import net.minecraft.world.entity.EntityType;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Weighted set of shiny entity types that can be sampled in constant time.
+ *
+ * Built with Vose's alias method: each slot holds one type, the chance of keeping it, and the type to use instead.
+ * A sample is one slot pick and one coin flip, however many types the table holds.
+ */
+final class ShinyCandidateTable {
+    static final ShinyCandidateTable EMPTY = new ShinyCandidateTable(new EntityType<?>[0], new double[0], new int[0]);
+
+    private final EntityType<?>[] types;
+    private final double[] keepChance;
+    private final int[] alias;
+
+    private ShinyCandidateTable(EntityType<?>[] types, double[] keepChance, int[] alias) {
+        this.types = types;
+        this.keepChance = keepChance;
+        this.alias = alias;
+    }
+
+    /**
+     * @param weights Positive weights, in the same order as {@code types}.
+     */
+    static ShinyCandidateTable of(List<EntityType<?>> types, List<Double> weights) {
+        int size = types.size();
+        if (size == 0) {
+            return EMPTY;
+        }
+
+        double total = 0.0D;
+        for (double weight : weights) {
+            total += weight;
+        }
+
+        // Scale the weights so the average slot is exactly 1, then split them into under- and overfull slots
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = weights.get(i) * size / total;
+            if (scaled[i] < 1.0D) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+
+        double[] keepChance = new double[size];
+        int[] alias = new int[size];
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            keepChance[less] = scaled[less];
+            alias[less] = more;
+
+            // The overfull slot gives away what fills the underfull one
+            scaled[more] = scaled[more] + scaled[less] - 1.0D;
+            if (scaled[more] < 1.0D) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+
+        // Whatever is left is full up to rounding error
+        while (largeCount > 0) {
+            keepChance[large[--largeCount]] = 1.0D;
+        }
+        while (smallCount > 0) {
+            keepChance[small[--smallCount]] = 1.0D;
+        }
+
+        return new ShinyCandidateTable(types.toArray(new EntityType<?>[0]), keepChance, alias);
+    }
+
+    @Nullable
+    EntityType<?> sample(Random random) {
+        if (types.length == 0) {
+            return null;
+        }
+
+        int slot = random.nextInt(types.length);
+        return random.nextDouble() < keepChance[slot] ? types[slot] : types[alias[slot]];
+    }
+}
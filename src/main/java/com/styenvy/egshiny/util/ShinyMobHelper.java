@@ -1,8 +1,14 @@
 package com.styenvy.egshiny.util;
 
 import com.styenvy.egshiny.EGShiny;
-import com.styenvy.egshiny.config.ShinyConfig;
+import com.styenvy.egshiny.config.ShinySettings;
+import com.styenvy.egshiny.data.ShinyAttachments;
+import com.styenvy.egshiny.data.ShinyState;
+import it.unimi.dsi.fastutil.objects.Object2IntMap;
 import net.minecraft.ChatFormatting;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
 import net.minecraft.core.registries.Registries;
 import net.minecraft.nbt.CompoundTag;
 import net.minecraft.network.chat.Component;
@@ -18,6 +24,7 @@ import net.minecraft.world.entity.ai.attributes.Attributes;
 import net.minecraft.world.entity.monster.Monster;
 import net.minecraft.world.entity.player.Player;
 import net.minecraft.world.entity.monster.RangedAttackMob;
+import net.minecraft.world.item.Item;
 import net.minecraft.world.item.ItemStack;
 import net.minecraft.world.item.Items;
 import net.minecraft.world.item.enchantment.Enchantment;
@@ -25,7 +32,11 @@ import net.minecraft.world.item.enchantment.EnchantmentHelper;
 import net.minecraft.world.item.enchantment.ItemEnchantments;
 import net.minecraft.world.scores.PlayerTeam;
 import net.minecraft.world.scores.Scoreboard;
+import org.jetbrains.annotations.Nullable;
 
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Random;
 import java.util.Optional;
 import java.util.UUID;
@@ -33,10 +44,17 @@ import java.util.UUID;
 public class ShinyMobHelper {
 
     private static final Random RANDOM = new Random();
+    // Legacy persistent-NBT keys, only read to migrate old entities
     private static final String SHINY_TAG = "IsShinyMob";
     private static final String HARD_SHINY_TAG = "IsHardShinyMob";
     private static final String OWNER_TAG = "ShinyOwner";
 
+    // Shared max-enchantment sets and per-profile gear prototypes, built from the registry access below
+    private static final Map<EnchantmentSet, ItemEnchantments> ENCHANTMENTS = new EnumMap<>(EnchantmentSet.class);
+    private static final Map<ShinyProfile, Map<WeaponKind, Map<EquipmentSlot, ItemStack>>> GEAR_TEMPLATES = new IdentityHashMap<>();
+    @Nullable
+    private static RegistryAccess gearAccess;
+
     // Tag for mobs that are allowed to wear shiny netherite gear
     private static final TagKey<EntityType<?>> SHINY_GEAR_COMPAT_TAG =
             TagKey.create(Registries.ENTITY_TYPE,
@@ -96,14 +114,8 @@ public class ShinyMobHelper {
             return;
         }
 
-        // Mark as shiny
-        CompoundTag tag = entity.getPersistentData();
-        tag.putBoolean(SHINY_TAG, true);
-
-        // Mark as hard shiny if requested and the profile is actually hard-mode
-        if (hardMode && profile.hardShiny()) {
-            tag.putBoolean(HARD_SHINY_TAG, true);
-        }
+        // Mark as shiny, and as hard shiny if requested and the profile is actually hard-mode
+        entity.setData(ShinyAttachments.SHINY_STATE, new ShinyState(hardMode && profile.hardShiny(), null));
 
         // Apply visual effects (glow + team)
         if (profile.useGlow()) {
@@ -127,23 +139,52 @@ public class ShinyMobHelper {
         entity.setCustomNameVisible(true);
 
         // Prevent natural despawning if configured (global, not per-profile)
-        if (!ShinyConfig.NATURAL_DESPAWN.get() && entity instanceof Mob mob) {
+        if (!ShinySettings.get().naturalDespawn() && entity instanceof Mob mob) {
             mob.setPersistenceRequired();
         }
     }
 
     public static boolean isShiny(LivingEntity entity) {
-        CompoundTag tag = entity.getPersistentData();
-        return tag.getBoolean(SHINY_TAG);
+        return entity.hasData(ShinyAttachments.SHINY_STATE);
     }
 
     public static void setOwner(LivingEntity entity, UUID ownerUUID) {
-        entity.getPersistentData().putUUID(OWNER_TAG, ownerUUID);
+        entity.setData(ShinyAttachments.SHINY_STATE, entity.getData(ShinyAttachments.SHINY_STATE).withOwner(ownerUUID));
     }
 
     public static Optional<UUID> getOwner(LivingEntity entity) {
+        if (!entity.hasData(ShinyAttachments.SHINY_STATE)) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(entity.getData(ShinyAttachments.SHINY_STATE).owner());
+    }
+
+    /**
+     * Moves shiny state saved by older versions in the entity's persistent NBT over to the attachment.
+     */
+    public static void migrateLegacyData(LivingEntity entity) {
+        // The legacy tags are the only reliable marker (names can be changed), but the attachment is never set
+        // alongside them, so entities that already have it skip the persistent data lookup
+        if (isShiny(entity)) {
+            return;
+        }
+
         CompoundTag tag = entity.getPersistentData();
-        return tag.hasUUID(OWNER_TAG) ? Optional.of(tag.getUUID(OWNER_TAG)) : Optional.empty();
+        if (!tag.contains(SHINY_TAG)) {
+            return;
+        }
+
+        if (tag.getBoolean(SHINY_TAG)) {
+            entity.setData(ShinyAttachments.SHINY_STATE, new ShinyState(
+                    tag.getBoolean(HARD_SHINY_TAG),
+                    tag.hasUUID(OWNER_TAG) ? tag.getUUID(OWNER_TAG) : null
+            ));
+        }
+
+        tag.remove(SHINY_TAG);
+        tag.remove(HARD_SHINY_TAG);
+        tag.remove(OWNER_TAG);
     }
 
     public static void cleanupShinyVisuals(LivingEntity entity, ServerLevel level) {
@@ -243,45 +284,64 @@ public class ShinyMobHelper {
             return;
         }
 
-        // Create and equip armor
-        ItemStack helmet = new ItemStack(Items.NETHERITE_HELMET);
-        ItemStack chestplate = new ItemStack(Items.NETHERITE_CHESTPLATE);
-        ItemStack leggings = new ItemStack(Items.NETHERITE_LEGGINGS);
-        ItemStack boots = new ItemStack(Items.NETHERITE_BOOTS);
+        // Drop chances only exist on Mob, not generic LivingEntity
+        float dropChance = (float) profile.dropChancePerItem();
 
-        // Main-hand weapon:
-        // - Ranged mobs: upgraded version of what they're already using (bow/crossbow)
-        // - Others: netherite sword
-        ItemStack mainHand;
-        if (mob instanceof RangedAttackMob) {
-            mainHand = getUpgradedRangedWeapon(mob);
-        } else {
-            mainHand = new ItemStack(Items.NETHERITE_SWORD);
+        // The templates are shared, so every mob gets its own copies
+        for (Map.Entry<EquipmentSlot, ItemStack> piece : getGearTemplate(level, profile, getWeaponKind(mob)).entrySet()) {
+            mob.setItemSlot(piece.getKey(), piece.getValue().copy());
+            mob.setDropChance(piece.getKey(), dropChance);
+        }
+    }
+
+    /**
+     * Returns the fully built (and, if the profile asks for it, enchanted) gear for a profile and weapon kind. The
+     * stacks are prototypes and must only be copied.
+     */
+    private static Map<EquipmentSlot, ItemStack> getGearTemplate(ServerLevel level, ShinyProfile profile, WeaponKind weaponKind) {
+        checkRegistryAccess(level.registryAccess());
+
+        Map<WeaponKind, Map<EquipmentSlot, ItemStack>> templates = GEAR_TEMPLATES.get(profile);
+        if (templates == null) {
+            templates = new EnumMap<>(WeaponKind.class);
+            GEAR_TEMPLATES.put(profile, templates);
         }
 
-        // Apply max enchantments if configured in profile
-        if (profile.maxEnchantments()) {
-            applyMaxEnchantments(helmet, level, EquipmentSlot.HEAD);
-            applyMaxEnchantments(chestplate, level, EquipmentSlot.CHEST);
-            applyMaxEnchantments(leggings, level, EquipmentSlot.LEGS);
-            applyMaxEnchantments(boots, level, EquipmentSlot.FEET);
-            applyMaxEnchantments(mainHand, level, EquipmentSlot.MAINHAND);
+        Map<EquipmentSlot, ItemStack> template = templates.get(weaponKind);
+        if (template == null) {
+            template = buildGearTemplate(level, profile, weaponKind);
+            templates.put(weaponKind, template);
         }
 
-        mob.setItemSlot(EquipmentSlot.HEAD, helmet);
-        mob.setItemSlot(EquipmentSlot.CHEST, chestplate);
-        mob.setItemSlot(EquipmentSlot.LEGS, leggings);
-        mob.setItemSlot(EquipmentSlot.FEET, boots);
-        mob.setItemSlot(EquipmentSlot.MAINHAND, mainHand);
+        return template;
+    }
 
-        // Drop chances only exist on Mob, not generic LivingEntity
-        float dropChance = (float) profile.dropChancePerItem();
+    private static Map<EquipmentSlot, ItemStack> buildGearTemplate(ServerLevel level, ShinyProfile profile, WeaponKind weaponKind) {
+        // Netherite armor, and for the main hand:
+        // - Ranged mobs: upgraded version of what they're already using (bow/crossbow)
+        // - Others: netherite sword
+        Map<EquipmentSlot, Item> items = new EnumMap<>(EquipmentSlot.class);
+        items.put(EquipmentSlot.HEAD, Items.NETHERITE_HELMET);
+        items.put(EquipmentSlot.CHEST, Items.NETHERITE_CHESTPLATE);
+        items.put(EquipmentSlot.LEGS, Items.NETHERITE_LEGGINGS);
+        items.put(EquipmentSlot.FEET, Items.NETHERITE_BOOTS);
+        items.put(EquipmentSlot.MAINHAND, weaponKind.defaultWeapon);
+
+        // Pieces from the profile's "gear" object replace the defaults slot by slot
+        items.putAll(profile.gear());
+
+        Map<EquipmentSlot, ItemStack> template = new EnumMap<>(EquipmentSlot.class);
+        for (Map.Entry<EquipmentSlot, Item> item : items.entrySet()) {
+            ItemStack stack = new ItemStack(item.getValue());
+
+            // Apply max enchantments if configured in profile
+            if (profile.maxEnchantments() && !stack.isEmpty()) {
+                applyMaxEnchantments(stack, level, item.getKey(), profile.gear().containsKey(item.getKey()));
+            }
+            template.put(item.getKey(), stack);
+        }
 
-        mob.setDropChance(EquipmentSlot.HEAD, dropChance);
-        mob.setDropChance(EquipmentSlot.CHEST, dropChance);
-        mob.setDropChance(EquipmentSlot.LEGS, dropChance);
-        mob.setDropChance(EquipmentSlot.FEET, dropChance);
-        mob.setDropChance(EquipmentSlot.MAINHAND, dropChance);
+        return template;
     }
 
     private static boolean isGearCompatibleMob(Mob mob) {
@@ -290,93 +350,170 @@ public class ShinyMobHelper {
 
     /**
      * For ranged mobs: give them an upgraded version of whatever ranged weapon they're using.
-     * - If they already hold a bow or crossbow, keep that type (new stack, then enchanted).
+     * - If they already hold a bow or crossbow, keep that type.
      * - Otherwise, choose a sensible default based on mob type.
      */
-    private static ItemStack getUpgradedRangedWeapon(Mob mob) {
+    private static WeaponKind getWeaponKind(Mob mob) {
+        if (!(mob instanceof RangedAttackMob)) {
+            return WeaponKind.MELEE;
+        }
+
         ItemStack current = mob.getMainHandItem();
 
         // If they already hold a bow or crossbow, preserve that type
         if (current.is(Items.BOW)) {
-            return new ItemStack(Items.BOW);
+            return WeaponKind.BOW;
         }
         if (current.is(Items.CROSSBOW)) {
-            return new ItemStack(Items.CROSSBOW);
+            return WeaponKind.CROSSBOW;
         }
 
         // Fallbacks:
         // - Pillagers should use crossbows
         // - Others default to bows
         if (mob.getType() == EntityType.PILLAGER) {
-            return new ItemStack(Items.CROSSBOW);
+            return WeaponKind.CROSSBOW;
         }
 
-        return new ItemStack(Items.BOW);
+        return WeaponKind.BOW;
     }
 
-    private static void applyMaxEnchantments(ItemStack stack, ServerLevel level, EquipmentSlot slot) {
-        ItemEnchantments.Mutable enchantments = new ItemEnchantments.Mutable(ItemEnchantments.EMPTY);
+    private enum WeaponKind {
+        MELEE(Items.NETHERITE_SWORD),
+        BOW(Items.BOW),
+        CROSSBOW(Items.CROSSBOW);
 
-        switch (slot) {
-            case HEAD -> {
-                addEnchantment(enchantments, level, "minecraft:protection", 4);
-                addEnchantment(enchantments, level, "minecraft:unbreaking", 3);
-                addEnchantment(enchantments, level, "minecraft:mending", 1);
-                addEnchantment(enchantments, level, "minecraft:respiration", 3);
-                addEnchantment(enchantments, level, "minecraft:aqua_affinity", 1);
-            }
-            case CHEST, LEGS -> {
-                addEnchantment(enchantments, level, "minecraft:protection", 4);
-                addEnchantment(enchantments, level, "minecraft:unbreaking", 3);
-                addEnchantment(enchantments, level, "minecraft:mending", 1);
-                addEnchantment(enchantments, level, "minecraft:thorns", 3);
-            }
-            case FEET -> {
-                addEnchantment(enchantments, level, "minecraft:protection", 4);
-                addEnchantment(enchantments, level, "minecraft:unbreaking", 3);
-                addEnchantment(enchantments, level, "minecraft:mending", 1);
-                addEnchantment(enchantments, level, "minecraft:feather_falling", 4);
-                addEnchantment(enchantments, level, "minecraft:depth_strider", 3);
-            }
-            case MAINHAND -> {
-                if (stack.is(Items.BOW)) {
-                    addEnchantment(enchantments, level, "minecraft:power", 5);
-                    addEnchantment(enchantments, level, "minecraft:punch", 2);
-                    addEnchantment(enchantments, level, "minecraft:flame", 1);
-                    addEnchantment(enchantments, level, "minecraft:unbreaking", 3);
-                    addEnchantment(enchantments, level, "minecraft:mending", 1);
-                } else if (stack.is(Items.CROSSBOW)) {
-                    addEnchantment(enchantments, level, "minecraft:quick_charge", 3);
-                    addEnchantment(enchantments, level, "minecraft:piercing", 4);
-                    addEnchantment(enchantments, level, "minecraft:unbreaking", 3);
-                    addEnchantment(enchantments, level, "minecraft:mending", 1);
-                } else {
-                    addEnchantment(enchantments, level, "minecraft:sharpness", 5);
-                    addEnchantment(enchantments, level, "minecraft:unbreaking", 3);
-                    addEnchantment(enchantments, level, "minecraft:mending", 1);
-                    addEnchantment(enchantments, level, "minecraft:fire_aspect", 2);
-                    addEnchantment(enchantments, level, "minecraft:looting", 3);
-                    addEnchantment(enchantments, level, "minecraft:sweeping_edge", 3);
+        private final Item defaultWeapon;
+
+        WeaponKind(Item defaultWeapon) {
+            this.defaultWeapon = defaultWeapon;
+        }
+    }
+
+    /**
+     * @param configured Whether the item comes from the profile's "gear" object. The shared sets are made for the
+     *                   default netherite gear, bow and crossbow, so configured items only get the enchantments
+     *                   that apply to them.
+     */
+    private static void applyMaxEnchantments(ItemStack stack, ServerLevel level, EquipmentSlot slot, boolean configured) {
+        EnchantmentSet set = switch (slot) {
+            case HEAD -> EnchantmentSet.HELMET;
+            case CHEST, LEGS -> EnchantmentSet.BODY_ARMOR;
+            case FEET -> EnchantmentSet.BOOTS;
+            case MAINHAND -> stack.is(Items.BOW) ? EnchantmentSet.BOW
+                    : stack.is(Items.CROSSBOW) ? EnchantmentSet.CROSSBOW
+                    : EnchantmentSet.MELEE;
+            // OFFHAND or anything else: no special enchants
+            default -> null;
+        };
+
+        if (set == null) {
+            return;
+        }
+
+        ItemEnchantments enchantments = getEnchantments(level, set);
+        if (configured) {
+            ItemEnchantments.Mutable applicable = new ItemEnchantments.Mutable(ItemEnchantments.EMPTY);
+            for (Object2IntMap.Entry<Holder<Enchantment>> entry : enchantments.entrySet()) {
+                if (entry.getKey().value().canEnchant(stack)) {
+                    applicable.set(entry.getKey(), entry.getIntValue());
                 }
             }
-            default -> {
-                // OFFHAND or anything else: no special enchants
+            enchantments = applicable.toImmutable();
+        }
+        EnchantmentHelper.setEnchantments(stack, enchantments);
+    }
+
+    /**
+     * Returns the shared enchantments for a gear set, building all of them the first time a registry access is
+     * seen. ItemEnchantments is immutable, so the same instance can go on every stack.
+     */
+    private static ItemEnchantments getEnchantments(ServerLevel level, EnchantmentSet set) {
+        RegistryAccess registryAccess = level.registryAccess();
+        checkRegistryAccess(registryAccess);
+        if (ENCHANTMENTS.isEmpty()) {
+            for (EnchantmentSet each : EnchantmentSet.values()) {
+                ENCHANTMENTS.put(each, each.build(registryAccess));
             }
         }
 
-        EnchantmentHelper.setEnchantments(stack, enchantments.toImmutable());
+        return ENCHANTMENTS.get(set);
+    }
+
+    /**
+     * Enchantments and gear templates hold registry entries, so they are dropped whenever the registry access changes.
+     */
+    private static void checkRegistryAccess(RegistryAccess registryAccess) {
+        if (gearAccess != registryAccess) {
+            clearGearCache();
+            gearAccess = registryAccess;
+        }
+    }
+
+    /**
+     * Drops the shared enchantments and gear templates, so they are rebuilt on next use.
+     */
+    public static void clearGearCache() {
+        ENCHANTMENTS.clear();
+        GEAR_TEMPLATES.clear();
+        gearAccess = null;
     }
 
-    private static void addEnchantment(ItemEnchantments.Mutable enchantments,
-                                       ServerLevel level,
-                                       String enchantmentId,
-                                       int lvl) {
-        ResourceKey<Enchantment> key =
-                ResourceKey.create(Registries.ENCHANTMENT, ResourceLocation.parse(enchantmentId));
-
-        level.registryAccess()
-                .registry(Registries.ENCHANTMENT)
-                .flatMap(reg -> reg.getHolder(key))
-                .ifPresent(holder -> enchantments.set(holder, lvl));
+    private enum EnchantmentSet {
+        HELMET(Map.of(
+                "minecraft:protection", 4,
+                "minecraft:unbreaking", 3,
+                "minecraft:mending", 1,
+                "minecraft:respiration", 3,
+                "minecraft:aqua_affinity", 1)),
+        BODY_ARMOR(Map.of(
+                "minecraft:protection", 4,
+                "minecraft:unbreaking", 3,
+                "minecraft:mending", 1,
+                "minecraft:thorns", 3)),
+        BOOTS(Map.of(
+                "minecraft:protection", 4,
+                "minecraft:unbreaking", 3,
+                "minecraft:mending", 1,
+                "minecraft:feather_falling", 4,
+                "minecraft:depth_strider", 3)),
+        BOW(Map.of(
+                "minecraft:power", 5,
+                "minecraft:punch", 2,
+                "minecraft:flame", 1,
+                "minecraft:unbreaking", 3,
+                "minecraft:mending", 1)),
+        CROSSBOW(Map.of(
+                "minecraft:quick_charge", 3,
+                "minecraft:piercing", 4,
+                "minecraft:unbreaking", 3,
+                "minecraft:mending", 1)),
+        MELEE(Map.of(
+                "minecraft:sharpness", 5,
+                "minecraft:unbreaking", 3,
+                "minecraft:mending", 1,
+                "minecraft:fire_aspect", 2,
+                "minecraft:looting", 3,
+                "minecraft:sweeping_edge", 3));
+
+        private final Map<String, Integer> levels;
+
+        EnchantmentSet(Map<String, Integer> levels) {
+            this.levels = levels;
+        }
+
+        private ItemEnchantments build(RegistryAccess registryAccess) {
+            ItemEnchantments.Mutable enchantments = new ItemEnchantments.Mutable(ItemEnchantments.EMPTY);
+            Optional<Registry<Enchantment>> registry = registryAccess.registry(Registries.ENCHANTMENT);
+            for (Map.Entry<String, Integer> entry : levels.entrySet()) {
+                ResourceKey<Enchantment> key =
+                        ResourceKey.create(Registries.ENCHANTMENT, ResourceLocation.parse(entry.getKey()));
+
+                registry.flatMap(reg -> reg.getHolder(key))
+                        .ifPresent(holder -> enchantments.set(holder, entry.getValue()));
+            }
+
+            return enchantments.toImmutable();
+        }
     }
 }
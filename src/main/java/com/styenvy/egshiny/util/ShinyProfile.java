@@ -1,11 +1,17 @@
 package com.styenvy.egshiny.util;
 
 import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.tags.TagKey;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.biome.Biome;
 
+import java.util.Map;
 import java.util.Set;
 
 public record ShinyProfile(
@@ -24,12 +30,17 @@ public record ShinyProfile(
         String shinyLootTableId,
         Set<ResourceLocation> allowedDimensions,
         Set<ResourceLocation> allowedBiomes,
-        Set<TagKey<Biome>> allowedBiomeTags
+        Set<TagKey<Biome>> allowedBiomeTags,
+        double weight,
+        Map<EquipmentSlot, Item> gear
 ) {
+    public static final double DEFAULT_WEIGHT = 1.0D;
+
     public ShinyProfile {
         allowedDimensions = Set.copyOf(allowedDimensions);
         allowedBiomes = Set.copyOf(allowedBiomes);
         allowedBiomeTags = Set.copyOf(allowedBiomeTags);
+        gear = Map.copyOf(gear);
     }
 
     public boolean canSpawnAt(ServerLevel level, BlockPos pos) {
@@ -37,11 +48,27 @@ public record ShinyProfile(
             return false;
         }
 
-        if (allowedBiomes.isEmpty() && allowedBiomeTags.isEmpty()) {
-            return true;
+        return allowedBiomes.isEmpty() && allowedBiomeTags.isEmpty()
+                || ShinyProfileRegistry.isBiomeAllowed(this, level.getBiome(pos));
+    }
+
+    /**
+     * Same check as {@link #canSpawnAt}, for a dimension and biome that are already known.
+     */
+    public boolean canSpawnIn(ResourceKey<Level> dimension, Holder<Biome> biome) {
+        if (!allowedDimensions.isEmpty() && !allowedDimensions.contains(dimension.location())) {
+            return false;
         }
 
-        var biome = level.getBiome(pos);
+        return allowedBiomes.isEmpty() && allowedBiomeTags.isEmpty()
+                || ShinyProfileRegistry.isBiomeAllowed(this, biome);
+    }
+
+    /**
+     * Checks the biome against the allowlist entry by entry. Only used until the allowlist is compiled, see
+     * {@link ShinyProfileRegistry#compileBiomeFilters}.
+     */
+    boolean matchesBiome(Holder<Biome> biome) {
         for (ResourceLocation biomeId : allowedBiomes) {
             if (biome.is(biomeId)) {
                 return true;
@@ -6,22 +6,34 @@ import com.google.gson.JsonElement;
 import com.google.gson.JsonObject;
 import com.google.gson.JsonParseException;
 import com.styenvy.egshiny.EGShiny;
-import com.styenvy.egshiny.config.ShinyConfig;
+import com.styenvy.egshiny.config.ShinySettings;
+import net.minecraft.core.BlockPos;
+import net.minecraft.core.Holder;
+import net.minecraft.core.Registry;
+import net.minecraft.core.RegistryAccess;
 import net.minecraft.core.registries.BuiltInRegistries;
 import net.minecraft.core.registries.Registries;
+import net.minecraft.resources.ResourceKey;
 import net.minecraft.resources.ResourceLocation;
+import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.packs.resources.ResourceManager;
 import net.minecraft.server.packs.resources.SimpleJsonResourceReloadListener;
 import net.minecraft.tags.TagKey;
 import net.minecraft.util.GsonHelper;
 import net.minecraft.util.profiling.ProfilerFiller;
 import net.minecraft.world.entity.EntityType;
+import net.minecraft.world.entity.EquipmentSlot;
+import net.minecraft.world.item.Item;
+import net.minecraft.world.level.Level;
 import net.minecraft.world.level.biome.Biome;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
@@ -36,6 +48,23 @@ public final class ShinyProfileRegistry {
 
     private static final Gson GSON = new Gson();
     private static final Map<EntityType<?>, ShinyProfile> PROFILES = new HashMap<>();
+    // Enabled profile files from the last datapack load, kept so a config reload can rebuild the profiles
+    private static Map<ResourceLocation, JsonObject> profileJson = Map.of();
+    private static final Map<String, EquipmentSlot> GEAR_SLOTS = Map.of(
+            "head", EquipmentSlot.HEAD,
+            "chest", EquipmentSlot.CHEST,
+            "legs", EquipmentSlot.LEGS,
+            "feet", EquipmentSlot.FEET,
+            "mainhand", EquipmentSlot.MAINHAND,
+            "offhand", EquipmentSlot.OFFHAND
+    );
+    // Eligible types per dimension and biome, indexed by hard mode; built on first use and dropped on every
+    // profile reload or tag update
+    private static final Map<ResourceKey<Level>, Map<Holder<Biome>, ShinyCandidateTable[]>> CANDIDATES = new HashMap<>();
+    // Biome allowlists resolved to biome registry IDs; only profiles with an allowlist have an entry
+    private static final Map<ShinyProfile, BitSet> BIOME_FILTERS = new IdentityHashMap<>();
+    @Nullable
+    private static Registry<Biome> biomeRegistry;
 
     private ShinyProfileRegistry() {
     }
@@ -49,29 +78,131 @@ public final class ShinyProfileRegistry {
     }
 
     public static EntityType<?> getRandomShinyEntityType(boolean includeHardProfiles, Random random,
-                                                         net.minecraft.server.level.ServerLevel level,
-                                                         net.minecraft.core.BlockPos pos) {
+                                                         ServerLevel level, BlockPos pos) {
+        return getCandidates(level.dimension(), level.getBiome(pos), includeHardProfiles).sample(random);
+    }
+
+    private static ShinyCandidateTable getCandidates(ResourceKey<Level> dimension, Holder<Biome> biome, boolean includeHardProfiles) {
+        Map<Holder<Biome>, ShinyCandidateTable[]> biomes = CANDIDATES.get(dimension);
+        if (biomes == null) {
+            biomes = new HashMap<>();
+            CANDIDATES.put(dimension, biomes);
+        }
+
+        ShinyCandidateTable[] tables = biomes.get(biome);
+        if (tables == null) {
+            tables = new ShinyCandidateTable[]{
+                    buildCandidates(dimension, biome, false),
+                    buildCandidates(dimension, biome, true)
+            };
+            biomes.put(biome, tables);
+        }
+
+        return tables[includeHardProfiles ? 1 : 0];
+    }
+
+    private static ShinyCandidateTable buildCandidates(ResourceKey<Level> dimension, Holder<Biome> biome, boolean includeHardProfiles) {
         List<EntityType<?>> candidates = new ArrayList<>();
+        List<Double> weights = new ArrayList<>();
         for (Map.Entry<EntityType<?>, ShinyProfile> entry : PROFILES.entrySet()) {
             ShinyProfile profile = entry.getValue();
             if (profile == null) {
                 continue;
             }
-            if ((!profile.hardShiny() || includeHardProfiles) && profile.canSpawnAt(level, pos)) {
+            // A weight of 0 keeps the profile out of natural spawns; spawntest can still force it
+            if ((!profile.hardShiny() || includeHardProfiles) && profile.weight() > 0.0D
+                    && profile.canSpawnIn(dimension, biome)) {
                 candidates.add(entry.getKey());
+                weights.add(profile.weight());
             }
         }
 
-        if (candidates.isEmpty()) {
-            return null;
+        return ShinyCandidateTable.of(candidates, weights);
+    }
+
+    static boolean isBiomeAllowed(ShinyProfile profile, Holder<Biome> biome) {
+        BitSet filter = BIOME_FILTERS.get(profile);
+        if (filter == null || biomeRegistry == null) {
+            return profile.matchesBiome(biome);
+        }
+
+        int id = biomeRegistry.getId(biome.value());
+        return id >= 0 ? filter.get(id) : profile.matchesBiome(biome);
+    }
+
+    /**
+     * Resolves every profile's biome IDs and biome tags into a bitset of biome registry IDs, and drops the
+     * candidate tables. Called whenever the server's tags are (re)bound, which happens after every profile reload.
+     */
+    public static void compileBiomeFilters(RegistryAccess registryAccess) {
+        BIOME_FILTERS.clear();
+        CANDIDATES.clear();
+        biomeRegistry = registryAccess.registryOrThrow(Registries.BIOME);
+
+        for (ShinyProfile profile : PROFILES.values()) {
+            if (profile.allowedBiomes().isEmpty() && profile.allowedBiomeTags().isEmpty()) {
+                continue;
+            }
+
+            BitSet filter = new BitSet(biomeRegistry.size());
+            for (ResourceLocation biomeId : profile.allowedBiomes()) {
+                biomeRegistry.getHolder(biomeId).ifPresent(biome -> filter.set(biomeRegistry.getId(biome.value())));
+            }
+            for (TagKey<Biome> biomeTag : profile.allowedBiomeTags()) {
+                biomeRegistry.getTag(biomeTag).ifPresent(biomes -> {
+                    for (Holder<Biome> biome : biomes) {
+                        filter.set(biomeRegistry.getId(biome.value()));
+                    }
+                });
+            }
+            BIOME_FILTERS.put(profile, filter);
         }
+    }
 
-        return candidates.get(random.nextInt(candidates.size()));
+    /**
+     * Drops every cached lookup that refers to the server's registries.
+     */
+    public static void clearCaches() {
+        CANDIDATES.clear();
+        BIOME_FILTERS.clear();
+        biomeRegistry = null;
+    }
+
+    /**
+     * Rebuilds the profiles from the last loaded datapack files on top of the current config settings, and compiles
+     * their biome filters again. Server thread only.
+     */
+    public static void rebuildProfiles(RegistryAccess registryAccess) {
+        replaceProfiles(parseProfiles(profileJson, ShinySettings.get().baseProfile()));
+        compileBiomeFilters(registryAccess);
+    }
+
+    private static Map<EntityType<?>, ShinyProfile> parseProfiles(Map<ResourceLocation, JsonObject> files, ShinyProfile base) {
+        Map<EntityType<?>, ShinyProfile> profiles = new HashMap<>();
+
+        for (Map.Entry<ResourceLocation, JsonObject> entry : files.entrySet()) {
+            try {
+                JsonObject json = entry.getValue();
+                ResourceLocation entityTypeId = getResourceLocation(json, "entity_type");
+                EntityType<?> entityType = BuiltInRegistries.ENTITY_TYPE.getOptional(entityTypeId)
+                        .orElseThrow(() -> new JsonParseException("Unknown entity type: " + entityTypeId));
+
+                profiles.put(entityType, parseProfile(json, base));
+            } catch (RuntimeException exception) {
+                EGShiny.LOGGER.error("Failed to load shiny profile {}", entry.getKey(), exception);
+            }
+        }
+
+        return profiles;
     }
 
     private static void replaceProfiles(Map<EntityType<?>, ShinyProfile> profiles) {
         PROFILES.clear();
         PROFILES.putAll(profiles);
+        // The new profiles are compiled once the reloaded tags are bound
+        CANDIDATES.clear();
+        BIOME_FILTERS.clear();
+        ShinyMobHelper.clearGearCache();
         EGShiny.LOGGER.info("Loaded {} shiny mob profiles", PROFILES.size());
     }
 
@@ -82,32 +213,25 @@ public final class ShinyProfileRegistry {
 
         @Override
         protected void apply(Map<ResourceLocation, JsonElement> objects, ResourceManager resourceManager, ProfilerFiller profiler) {
-            Map<EntityType<?>, ShinyProfile> loadedProfiles = new HashMap<>();
+            Map<ResourceLocation, JsonObject> enabledFiles = new HashMap<>();
 
             for (Map.Entry<ResourceLocation, JsonElement> entry : objects.entrySet()) {
                 try {
                     JsonObject json = GsonHelper.convertToJsonObject(entry.getValue(), "shiny profile");
-                    if (!GsonHelper.getAsBoolean(json, "enabled", true)) {
-                        continue;
+                    if (GsonHelper.getAsBoolean(json, "enabled", true)) {
+                        enabledFiles.put(entry.getKey(), json);
                     }
-
-                    ResourceLocation entityTypeId = getResourceLocation(json, "entity_type");
-                    EntityType<?> entityType = BuiltInRegistries.ENTITY_TYPE.getOptional(entityTypeId)
-                            .orElseThrow(() -> new JsonParseException("Unknown entity type: " + entityTypeId));
-
-                    loadedProfiles.put(entityType, parseProfile(json));
                 } catch (RuntimeException exception) {
                     EGShiny.LOGGER.error("Failed to load shiny profile {}", entry.getKey(), exception);
                 }
             }
 
-            replaceProfiles(loadedProfiles);
+            profileJson = enabledFiles;
+            replaceProfiles(parseProfiles(enabledFiles, ShinySettings.get().baseProfile()));
         }
     }
 
-    private static ShinyProfile parseProfile(JsonObject json) {
-        ShinyProfile base = createBaseProfileFromConfig();
-
+    private static ShinyProfile parseProfile(JsonObject json, ShinyProfile base) {
         return new ShinyProfile(
                 getScaledDouble(json, "min_health_multiplier", "min_health_multiplier_scale", base.minHealthMultiplier()),
                 getScaledDouble(json, "max_health_multiplier", "max_health_multiplier_scale", base.maxHealthMultiplier()),
@@ -124,28 +248,9 @@ public final class ShinyProfileRegistry {
                 getOptionalString(json, "shiny_loot_table"),
                 parseResourceLocations(json, "allowed_dimensions"),
                 parseBiomeIds(json, "allowed_biomes"),
-                parseBiomeTags(json, "allowed_biomes")
-        );
-    }
-
-    private static ShinyProfile createBaseProfileFromConfig() {
-        return new ShinyProfile(
-                ShinyConfig.MIN_HEALTH_MULTIPLIER.get(),
-                ShinyConfig.MAX_HEALTH_MULTIPLIER.get(),
-                ShinyConfig.FIXED_HEALTH_MULTIPLIER.get(),
-                ShinyConfig.USE_RANDOM_HEALTH.get(),
-                ShinyConfig.DAMAGE_MULTIPLIER.get(),
-                false,
-                ShinyConfig.EQUIP_NETHERITE.get(),
-                ShinyConfig.MAX_ENCHANTMENTS.get(),
-                ShinyConfig.DROP_CHANCE_PER_ITEM.get(),
-                ShinyConfig.USE_GLOW_EFFECT.get(),
-                ShinyConfig.RANDOM_TEAM_COLOR.get(),
-                ShinyConfig.FIXED_TEAM_COLOR.get(),
-                null,
-                Set.of(),
-                Set.of(),
-                Set.of()
+                parseBiomeTags(json, "allowed_biomes"),
+                parseWeight(json),
+                parseGear(json)
         );
     }
 
@@ -157,6 +262,37 @@ public final class ShinyProfileRegistry {
         return baseValue * GsonHelper.getAsDouble(json, scaleKey, 1.0D);
     }
 
+    private static double parseWeight(JsonObject json) {
+        double weight = GsonHelper.getAsDouble(json, "weight", ShinyProfile.DEFAULT_WEIGHT);
+        if (!(weight >= 0.0D) || Double.isInfinite(weight)) {
+            throw new JsonParseException("Shiny profile weight must be a finite number >= 0, got " + weight);
+        }
+
+        return weight;
+    }
+
+    private static Map<EquipmentSlot, Item> parseGear(JsonObject json) {
+        Map<EquipmentSlot, Item> gear = new EnumMap<>(EquipmentSlot.class);
+        if (!json.has("gear")) {
+            return gear;
+        }
+
+        JsonObject gearJson = GsonHelper.getAsJsonObject(json, "gear");
+        for (Map.Entry<String, JsonElement> entry : gearJson.entrySet()) {
+            EquipmentSlot slot = GEAR_SLOTS.get(entry.getKey());
+            if (slot == null) {
+                throw new JsonParseException("Unknown gear slot: " + entry.getKey() + ", expected one of " + GEAR_SLOTS.keySet());
+            }
+
+            ResourceLocation itemId = ResourceLocation.parse(GsonHelper.convertToString(entry.getValue(), entry.getKey()));
+            Item item = BuiltInRegistries.ITEM.getOptional(itemId)
+                    .orElseThrow(() -> new JsonParseException("Unknown item: " + itemId));
+            gear.put(slot, item);
+        }
+
+        return gear;
+    }
+
     @Nullable
     private static String getOptionalString(JsonObject json, String key) {
         if (!json.has(key) || json.get(key).isJsonNull()) {